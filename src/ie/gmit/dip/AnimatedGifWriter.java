@@ -0,0 +1,216 @@
+package ie.gmit.dip;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+
+/**
+ * <p>Writes a sequence of equally sized frames as a looping animated GIF, encoding each frame <b>only by the rectangle in which it differs</b> from the frame before. Each such rectangle is drawn over what is already on screen, so an unchanged pixel never has to be encoded twice, and both the file size and the time spent encoding grow with how much changes rather than with the number of frames times the image area.</p>
+ * <p>A frame that does not differ from the one before at all is not written; the previous frame is shown for longer instead. The file is written next to its target and renamed to it once complete, like the images written by <code>WordCloudIO</code>.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class AnimatedGifWriter implements Closeable {
+    private static final int MAX_DELAY_CENTIS = 0xFFFF; // The delay field of a GIF frame has 16 bits.
+    private final File TARGET;
+    private final File TEMP;
+    private final ImageOutputStream OUT;
+    private final ImageWriter WRITER;
+    private int[] previous; // The pixels of the last frame added
+    private BufferedImage pending; // The rectangle of the last changed frame, written once its delay is known
+    private Rectangle pendingBounds;
+    private int pendingDelay;
+    private int frames;
+    private long pixelsEncoded;
+    private long pixelsTotal;
+    private boolean isClosed;
+
+    /**
+     * @param target The GIF file to be written; it is replaced once <code>close</code> has written the last frame.
+     * @throws IOException If the temporary file cannot be created or there is no GIF writer.
+     */
+    public AnimatedGifWriter(File target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+        if (!writers.hasNext()) throw new IOException("No GIF writer");
+        this.WRITER = writers.next();
+        this.TARGET = target;
+        this.TEMP = File.createTempFile(".wcloud", ".tmp", target.getAbsoluteFile().getParentFile());
+        this.OUT = ImageIO.createImageOutputStream(TEMP);
+        WRITER.setOutput(OUT);
+        WRITER.prepareWriteSequence(null); // The logical screen takes the size of the first frame, which is always the full image.
+    }
+
+    /**
+     * <p>Adds a frame. It is compared with the previous frame pixel by pixel, and only the bounding rectangle of the pixels that differ is kept for encoding; the first frame is kept whole.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of pixels, for the comparison, plus the cost of encoding the changed rectangle of the previous frame.</p>
+     *
+     * @param image       The frame, of type <code>TYPE_INT_RGB</code> and of the same size as the first frame. It must not be changed afterwards.
+     * @param delayCentis How long the frame is shown, in hundredths of a second.
+     * @throws IOException If the previous frame cannot be written.
+     */
+    // O(n) see JavaDocs
+    public void addFrame(BufferedImage image, int delayCentis) throws IOException {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Rectangle bounds = previous == null ? new Rectangle(0, 0, image.getWidth(), image.getHeight()) : changedBounds(previous, pixels, image.getWidth());
+        pixelsTotal += pixels.length;
+        previous = pixels;
+        if (bounds == null) { // Nothing changed, so the previous frame stays on screen for longer.
+            pendingDelay = Math.min(MAX_DELAY_CENTIS, pendingDelay + delayCentis);
+            return;
+        }
+        flush();
+        pending = image.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height);
+        pendingBounds = bounds;
+        pendingDelay = delayCentis;
+        pixelsEncoded += (long) bounds.width * bounds.height;
+    }
+
+    /**
+     * Returns the bounding rectangle of the pixels in which two frames differ.
+     *
+     * @return The rectangle, or <code>null</code> if the frames are identical.
+     */
+    // O(n) with n being the number of pixels; rows are scanned from both ends, columns only between the changed rows
+    private static Rectangle changedBounds(int[] before, int[] after, int width) {
+        int height = after.length / width;
+        int top = 0;
+        while (top < height && rowEquals(before, after, top * width, width)) top++;
+        if (top == height) return null;
+        int bottom = height - 1;
+        while (rowEquals(before, after, bottom * width, width)) bottom--;
+        int left = width;
+        int right = -1;
+        for (int y = top; y <= bottom; y++) {
+            int row = y * width;
+            for (int x = 0; x < left; x++) {
+                if (before[row + x] != after[row + x]) {
+                    left = x;
+                    break;
+                }
+            }
+            for (int x = width - 1; x > right; x--) {
+                if (before[row + x] != after[row + x]) {
+                    right = x;
+                    break;
+                }
+            }
+        }
+        return new Rectangle(left, top, right - left + 1, bottom - top + 1);
+    }
+
+    // O(n) with n being the width of a row
+    private static boolean rowEquals(int[] before, int[] after, int offset, int width) {
+        for (int i = offset; i < offset + width; i++) if (before[i] != after[i]) return false;
+        return true;
+    }
+
+    /**
+     * <p>Encodes the pending frame at its position in the image. Its metadata tells the viewer to leave it on screen, so that the next rectangle is drawn over it, and the first frame also sets the animation to loop forever.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of pixels in the rectangle, which the GIF writer reduces to a palette of its own.</p>
+     *
+     * @throws IOException If the frame cannot be written.
+     */
+    // O(n) see JavaDocs
+    private void flush() throws IOException {
+        if (pending == null) return;
+        ImageWriteParam param = WRITER.getDefaultWriteParam();
+        IIOMetadata metadata = WRITER.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(pending), param);
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        IIOMetadataNode descriptor = child(root, "ImageDescriptor");
+        descriptor.setAttribute("imageLeftPosition", String.valueOf(pendingBounds.x));
+        descriptor.setAttribute("imageTopPosition", String.valueOf(pendingBounds.y));
+        descriptor.setAttribute("imageWidth", String.valueOf(pendingBounds.width));
+        descriptor.setAttribute("imageHeight", String.valueOf(pendingBounds.height));
+        descriptor.setAttribute("interlaceFlag", "FALSE");
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "doNotDispose");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("transparentColorIndex", "0");
+        control.setAttribute("delayTime", String.valueOf(pendingDelay));
+
+        if (frames == 0) {
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[]{1, 0, 0}); // Sub-block 1, loop count 0: forever
+            child(root, "ApplicationExtensions").appendChild(loop);
+        }
+        metadata.setFromTree(format, root);
+        WRITER.writeToSequence(new IIOImage(pending, null, metadata), param);
+        frames++;
+        pending = null;
+    }
+
+    // O(c) with c being the number of children of the node
+    private static IIOMetadataNode child(IIOMetadataNode node, String name) {
+        for (int i = 0; i < node.getLength(); i++) {
+            if (node.item(i).getNodeName().equalsIgnoreCase(name)) return (IIOMetadataNode) node.item(i);
+        }
+        IIOMetadataNode child = new IIOMetadataNode(name);
+        node.appendChild(child);
+        return child;
+    }
+
+    /**
+     * Returns the number of frames written so far; identical frames that were merged into the one before are not counted.
+     *
+     * @return The number of frames.
+     */
+    // O(1) simple getter
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the share of all pixels added that had to be encoded, i.e. the total area of the changed rectangles divided by the number of frames times the image area.
+     *
+     * @return A value from 0 to 1.
+     */
+    // O(1) simple getter
+    public double getEncodedRatio() {
+        return pixelsTotal == 0 ? 0 : (double) pixelsEncoded / pixelsTotal;
+    }
+
+    /**
+     * <p>Writes the last frame, ends the sequence and replaces the target file with the finished animation in one atomic step. If no frame was added, the target is left untouched. Closing the writer again has no effect.</p>
+     *
+     * @throws IOException If the animation cannot be written or renamed.
+     */
+    // O(n) see flush
+    @Override
+    public void close() throws IOException {
+        if (isClosed) return;
+        isClosed = true;
+        try {
+            try {
+                flush();
+                if (frames > 0) WRITER.endWriteSequence();
+            } finally {
+                WRITER.dispose();
+                OUT.close();
+            }
+            if (frames > 0) Files.move(TEMP.toPath(), TARGET.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(TEMP.toPath()); // Only left over if writing failed
+        }
+    }
+}
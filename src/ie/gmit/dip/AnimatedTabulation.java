@@ -0,0 +1,62 @@
+package ie.gmit.dip;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * <p>A class that renders an <b>animated word cloud</b> showing how the cloud grows source by source. The sources in the parser list are tabulated in list order, their counts are accumulated, and after each source a frame is rendered from the top words counted so far.</p>
+ * <p>Frames are laid out with <code>WordCloudRenderer.layout(List, WordCloudLayout)</code>, which keeps every word where it was in the previous frame unless it grows or shrinks noticeably, so consecutive frames differ only where words come, go or change size. <code>AnimatedGifWriter</code> then encodes each frame only by the rectangle in which it changed.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class AnimatedTabulation {
+    private static final int FRAME_DELAY_CENTIS = 100;
+    private static final int LAST_FRAME_DELAY_CENTIS = 300; // The finished cloud is held for longer before the animation starts over.
+
+    /**
+     * <p>Tabulates every source in the parser list in list order and writes an animated GIF with one frame per source to <code>WordCloudIO.getAnimationFile()</code>, overwriting it without asking. Counts are accumulated as raw counts; near-duplicate removal and scoring across sources do not apply.</p>
+     * <p>This method runs in <b>O(n + f(w log k + p))</b> time with n being the total size of the sources, f being the number of frames, w being the number of distinct words, k the maximum number of words rendered and p the number of pixels per frame, which are compared but, unless they changed, not encoded.</p>
+     *
+     * @return True, if the animation was written, or else, false.
+     */
+    // O(n + f(w log k + p)) see JavaDocs
+    public static boolean render() {
+        List<FrequencyTabulator<?>> sources = Tabulators.getTabulators();
+        if (sources.isEmpty()) {
+            Runner.log(Strings.PARSER_JOB_LIST_EMPTY_NO_WORDS.get());
+            return false;
+        }
+        int[] size = WordCloudRenderer.getImageSize();
+        Map<String, Integer> totals = new HashMap<>();
+        WordCloudLayout layout = null;
+        AnimatedGifWriter animation;
+        try (AnimatedGifWriter writer = new AnimatedGifWriter(WordCloudIO.getAnimationFile())) {
+            animation = writer;
+            BufferedImage frame = null;
+            for (FrequencyTabulator<?> ft : sources) {
+                Map<String, Integer> table = new HashMap<>();
+                ft.tabulate(table);
+                table.forEach((word, count) -> totals.merge(word, count, Integer::sum));
+                if (totals.isEmpty()) continue; // Nothing to show yet
+                if (frame != null) writer.addFrame(frame, FRAME_DELAY_CENTIS);
+                layout = WordCloudRenderer.layout(Tabulators.top(totals, WordCloudRenderer.getMaxWords()), layout);
+                frame = WordCloudRenderer.render(layout, size[0], size[1], false); // GIF has no alpha channel, only a transparent palette index.
+            }
+            if (frame == null) {
+                Runner.log(Strings.RENDER_WORD_LIST_EMPTY.get());
+                return false;
+            }
+            writer.addFrame(frame, LAST_FRAME_DELAY_CENTIS);
+        } catch (IOException e) {
+            Runner.log(Strings.IO_WRITING_IMAGE_ERROR.get());
+            return false;
+        } // The animation is complete once the writer has been closed.
+        Runner.log(String.format(Strings.ANIMATION_WRITTEN.get(), animation.getFrames(), Math.round(100 * animation.getEncodedRatio())));
+        return true;
+    }
+
+    private AnimatedTabulation() {
+    }
+}
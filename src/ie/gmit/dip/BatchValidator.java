@@ -0,0 +1,112 @@
+package ie.gmit.dip;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * <p>A class that takes in a batch of inputs as <code>String</code>s on construction, safely interprets each of them as a <code>V</code> <i>verifiable type</i> and verifies <b>simultaneously</b> that the resulting objects meet a set of <i>custom requirements</i>.</p>
+ * <p>Unlike a <code>ConsoleValidator</code>, which loops until one valid input is entered, a batch validator never blocks on the user: every input is either accepted or listed as a failure with a reason. Each item has a time limit, so one unresponsive source cannot hold up the batch.</p>
+ *
+ * @param <V> The verifiable type.
+ * @version 1.0
+ * @since 1.8
+ */
+public abstract class BatchValidator<V> implements Validation<String, V> {
+    private final List<V> RESULTS = new ArrayList<>();
+    private final Map<String, String> FAILURES = new LinkedHashMap<>();
+
+    /**
+     * Returns the first valid object of the batch, in input order.
+     *
+     * @return The first valid object, or <code>null</code> if no input was valid.
+     */
+    // O(1) simple getter/setter
+    public V result() {
+        return RESULTS.isEmpty() ? null : RESULTS.get(0);
+    }
+
+    /**
+     * Returns all valid objects of the batch, in input order.
+     *
+     * @return A copy of the list of valid objects.
+     */
+    // O(n) copies the list
+    public List<V> results() {
+        return new ArrayList<>(RESULTS);
+    }
+
+    /**
+     * Returns every input that failed, mapped to the reason it failed, in input order.
+     *
+     * @return A copy of the failures.
+     */
+    // O(n) copies the map
+    public Map<String, String> failures() {
+        return new LinkedHashMap<>(FAILURES);
+    }
+
+    public abstract V recast(String input);
+
+    public abstract boolean validate(V verifiable);
+
+    /**
+     * Returns the number of items validated at the same time. Items that wait on the network can use many more threads than items that only read local attributes.
+     *
+     * @return The number of threads.
+     */
+    protected abstract int threads();
+
+    /**
+     * Returns the time limit per item in seconds.
+     *
+     * @return The time limit in seconds.
+     */
+    protected abstract int timeoutSeconds();
+
+    /**
+     * <p>Interprets and verifies every input simultaneously on a thread pool and sorts it into the valid results or the failures. Blank inputs are ignored. If the calling thread is interrupted, every input not yet collected is listed as a failure, so none of them goes missing.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of inputs, disregarding the cost of <code>validate</code>, which is spread over the threads.</p>
+     *
+     * @param inputs The inputs to be validated.
+     */
+    // O(n) see JavaDocs
+    public BatchValidator(Collection<String> inputs) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads());
+        Map<String, Future<V>> futures = new LinkedHashMap<>();
+        for (String input : inputs) {
+            String trimmed = input.trim();
+            if (trimmed.isEmpty() || futures.containsKey(trimmed)) continue;
+            futures.put(trimmed, executor.submit(() -> {
+                V verifiable = recast(trimmed);
+                return (verifiable != null && validate(verifiable)) ? verifiable : null;
+            }));
+        }
+        executor.shutdown();
+
+        long waves = (futures.size() + threads() - 1) / threads(); // Items are validated in waves of threads(), each wave gets the full time limit.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds() * Math.max(waves, 1));
+        boolean isInterrupted = false;
+        for (Map.Entry<String, Future<V>> entry : futures.entrySet()) {
+            if (isInterrupted) {
+                FAILURES.put(entry.getKey(), Strings.BATCH_FAILURE_CANCELLED.get());
+                continue;
+            }
+            try {
+                long remaining = Math.max(deadline - System.nanoTime(), TimeUnit.SECONDS.toNanos(1)); // Items queued behind others still get a moment of their own.
+                V verifiable = entry.getValue().get(remaining, TimeUnit.NANOSECONDS);
+                if (verifiable != null) RESULTS.add(verifiable);
+                else FAILURES.put(entry.getKey(), Strings.BATCH_FAILURE_INVALID.get());
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                FAILURES.put(entry.getKey(), Strings.BATCH_FAILURE_TIMEOUT.get());
+            } catch (ExecutionException e) {
+                FAILURES.put(entry.getKey(), Strings.BATCH_FAILURE_INVALID.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                isInterrupted = true;
+                FAILURES.put(entry.getKey(), Strings.BATCH_FAILURE_CANCELLED.get());
+            }
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,22 @@
+package ie.gmit.dip;
+
+/**
+ * An enumeration of the ways <code>Tabulators</code> can leave near-duplicate sources, such as mirrors or syndicated copies of a page, out of the counts.
+ */
+public enum Deduplication {
+    OFF("off"),
+    ONE_PASS("after counting"),
+    TWO_PASS("before counting");
+
+    private final String label;
+
+    Deduplication(String label) {
+        this.label = label;
+    }
+
+    // O(1) simple getter
+    @Override
+    public String toString() {
+        return this.label;
+    }
+}
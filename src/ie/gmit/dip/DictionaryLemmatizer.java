@@ -0,0 +1,105 @@
+package ie.gmit.dip;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>A normalizer that maps inflected forms to their dictionary form, such as "ran" to "run" or "mice" to "mouse", using a lemma list loaded from a text file with one "form lemma" pair per line.</p>
+ * <p>The pairs are stored in an <b>immutable open-addressing hash table</b> made of two parallel <code>String</code> arrays, so lookups allocate nothing and the table can be shared by all tabulator threads without locking.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class DictionaryLemmatizer implements TokenNormalizer {
+    private final String[] FORMS;
+    private final String[] LEMMAS;
+    private final int MASK;
+
+    /**
+     * <p>Loads a lemma list. Blank lines, lines starting with "#", and lines without two whitespace-separated columns are skipped; forms are lowercased to match the tokenizer's output.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of lines.</p>
+     *
+     * @param file The lemma list.
+     * @throws IOException If the file cannot be read.
+     */
+    // O(n) see JavaDocs
+    public DictionaryLemmatizer(File file) throws IOException {
+        this(read(file));
+    }
+
+    /**
+     * <p>Builds the table from "form lemma" pairs that have already been read, such as those sent to a worker process by <code>DistributedTabulation</code>.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of pairs.</p>
+     *
+     * @param pairs The pairs, each an array of a lowercase form and its lemma.
+     */
+    // O(n) see JavaDocs
+    DictionaryLemmatizer(Collection<String[]> pairs) {
+        int capacity = 16;
+        while (capacity < pairs.size() * 2) capacity <<= 1; // A load factor of at most 0.5 keeps probe sequences short.
+        FORMS = new String[capacity];
+        LEMMAS = new String[capacity];
+        MASK = capacity - 1;
+        for (String[] pair : pairs) {
+            int index = slot(pair[0]);
+            if (FORMS[index] == null) { // The first entry for a form wins.
+                FORMS[index] = pair[0];
+                LEMMAS[index] = pair[1];
+            }
+        }
+    }
+
+    // O(n) with n being the number of lines
+    private static List<String[]> read(File file) throws IOException {
+        List<String[]> pairs = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] columns = line.split("\\s+");
+                if (columns.length >= 2) pairs.add(new String[]{columns[0].toLowerCase(), columns[1].toLowerCase()});
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Returns the pairs in the table, so that they can be sent to a worker process.
+     *
+     * @return A new list of pairs, each an array of a form and its lemma.
+     */
+    // O(n) with n being the capacity of the table
+    List<String[]> pairs() {
+        List<String[]> pairs = new ArrayList<>();
+        for (int i = 0; i < FORMS.length; i++) if (FORMS[i] != null) pairs.add(new String[]{FORMS[i], LEMMAS[i]});
+        return pairs;
+    }
+
+    // O(1) on average, linear probing
+    private int slot(String form) {
+        int h = form.hashCode();
+        int index = (h ^ (h >>> 16)) & MASK;
+        while (FORMS[index] != null && !FORMS[index].equals(form)) index = (index + 1) & MASK;
+        return index;
+    }
+
+    /**
+     * <p>Returns the lemma of <code>token</code>, if the list contains it.</p>
+     * <p>This method runs in <b>constant time O(1)</b> on average.</p>
+     *
+     * @param token A lowercase token.
+     * @return The lemma, or <code>token</code> itself if it is not in the list.
+     */
+    // O(1) see JavaDocs
+    public String normalize(String token) {
+        String lemma = LEMMAS[slot(token)];
+        return lemma != null ? lemma : token;
+    }
+}
@@ -0,0 +1,212 @@
+package ie.gmit.dip;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * <p>A coordinator that partitions a list of <code>FrequencyTabulator</code>s across several worker processes, each running <code>TabulationWorker</code> in its own JVM, and merges their partial frequency tables into one table.</p>
+ * <p>By default, workers are started as local processes with the same class path as this JVM. The system property <code>wcloud.worker.command</code> can replace the launch command, for example with <code>ssh host java -cp /opt/wcloud ie.gmit.dip.TabulationWorker</code>, to spread the work over several machines; the worker's settings are appended to it. The stop words and lemmas are sent to every worker ahead of its sources, so a worker never depends on the files in its own working directory; file sources, however, must be readable under the same path on the worker's machine, or else the worker fails and its partition is tabulated here.</p>
+ * <p>A partition whose worker exits abnormally, writes a malformed table or exceeds the timeout is retried; if every attempt fails, the partition is tabulated in this JVM instead, so a broken worker never loses a source.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class DistributedTabulation {
+    private static int workers = 1;
+    private static int maxRetries = 2;
+    private static long workerTimeoutMinutes = 30;
+
+    /**
+     * Returns the number of worker processes used by <code>Tabulators.execute</code>. A value of 1 means that all sources are tabulated in this JVM.
+     *
+     * @return The number of worker processes.
+     */
+    // O(1) simple getter/setter
+    public static int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Sets the number of worker processes used by <code>Tabulators.execute</code>. A value of 1 disables distributed tabulation.
+     *
+     * @param count The number of worker processes.
+     */
+    // O(1) simple getter/setter
+    public static void setWorkers(int count) {
+        workers = count;
+        Runner.log(Strings.VAR_SET_WORKERS.get());
+    }
+
+    /**
+     * Returns the command used to start a worker process, without its settings.
+     *
+     * @return The command and its arguments.
+     */
+    // O(n) with n being the length of the command
+    private static List<String> workerCommand() {
+        List<String> command = new ArrayList<>();
+        String custom = System.getProperty("wcloud.worker.command");
+        if (custom != null && !custom.trim().isEmpty()) {
+            command.addAll(Arrays.asList(custom.trim().split("\\s+")));
+        } else {
+            command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(TabulationWorker.class.getName());
+        }
+        return command;
+    }
+
+    /**
+     * Returns the settings that a worker needs to tabulate exactly like this JVM would.
+     *
+     * @return The settings as command line arguments.
+     */
+    // O(1) a fixed number of settings
+    private static List<String> workerArguments() {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--min-word-length");
+        arguments.add(String.valueOf(Tabulators.getMinWordLength()));
+        arguments.add("--phrase-length");
+        arguments.add(String.valueOf(Tabulators.getPhraseLength()));
+        arguments.add("--timeout");
+        arguments.add(String.valueOf(Tabulators.getSourceTimeoutSeconds()));
+        arguments.add("--normalization");
+        arguments.add(Tabulators.getNormalization().name());
+        return arguments;
+    }
+
+    /**
+     * <p>Returns the lines that give a worker the stop words and, if words are lemmatized, the lemmas of this JVM, in the form <code>stop &lt;word&gt;</code>, <code>language &lt;language&gt; &lt;word&gt;</code> and <code>lemma &lt;form&gt; &lt;lemma&gt;</code>. They are sent ahead of the task lines.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of stop words and lemmas.</p>
+     *
+     * @return The setup lines.
+     */
+    // O(n) see JavaDocs
+    private static List<String> workerSetup() {
+        List<String> lines = new ArrayList<>();
+        for (String word : Tabulators.getStopWords()) lines.add("stop " + word);
+        for (Map.Entry<String, Set<String>> language : Tabulators.getLanguageStopWords().entrySet()) {
+            for (String word : language.getValue()) lines.add("language " + language.getKey() + " " + word);
+        }
+        if (Tabulators.getNormalizer() instanceof DictionaryLemmatizer) {
+            for (String[] pair : ((DictionaryLemmatizer) Tabulators.getNormalizer()).pairs()) lines.add("lemma " + pair[0] + " " + pair[1]);
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the task line that tells a worker how to tabulate <code>ft</code>, or <code>null</code> if the source type cannot be sent to a worker.
+     *
+     * @param ft A frequency tabulator.
+     * @return A task line for <code>TabulationWorker</code>, or <code>null</code>.
+     */
+    // O(1) no loops here
+    private static String task(FrequencyTabulator<?> ft) {
+        if (ft instanceof FileFrequencyTabulator) return "file " + ft;
+        if (ft instanceof URLFrequencyTabulator) return "url " + ft;
+        return null;
+    }
+
+    /**
+     * <p>Starts one worker process for a partition, sends it the setup lines and the partition's task lines and reads its partial table into a new map. The process is destroyed if it does not finish within the timeout.</p>
+     *
+     * @param setup    The setup lines, see <code>workerSetup</code>.
+     * @param tasks    The task lines of the partition.
+     * @param watchdog The executor used to enforce the timeout.
+     * @return The partial frequency table of the partition.
+     * @throws IOException If the worker cannot be started, fails, or writes a malformed table.
+     */
+    // O(n) with n being the size of the partial table, disregarding the work done by the worker
+    private static Map<String, Integer> runWorker(List<String> setup, List<String> tasks, ScheduledExecutorService watchdog) throws IOException, InterruptedException {
+        List<String> command = workerCommand();
+        command.addAll(workerArguments());
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        ScheduledFuture<?> timeout = watchdog.schedule(process::destroyForcibly, workerTimeoutMinutes, TimeUnit.MINUTES);
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), "UTF-8"))) {
+                for (String line : setup) writer.write(line + "\n");
+                for (String task : tasks) writer.write(task + "\n");
+            }
+            Map<String, Integer> partialTable = new HashMap<>();
+            try (InputStream in = process.getInputStream()) {
+                FrequencySnapshot.mergeInto(FrequencySnapshot.read(in), partialTable);
+            }
+            if (process.waitFor() != 0) throw new IOException("Worker exited with code " + process.exitValue() + ".");
+            return partialTable;
+        } finally {
+            timeout.cancel(false);
+            process.destroy();
+        }
+    }
+
+    /**
+     * <p>Partitions the tabulators round-robin across the worker processes, runs the partitions simultaneously, and adds every partial table to <code>frequencyTable</code>. Sources that cannot be sent to a worker are tabulated in this JVM.</p>
+     * <p>This method runs in <b>linear time O(n)</b> in this JVM with n being the total size of the partial tables.</p>
+     *
+     * @param tabulators     The tabulators to be executed.
+     * @param frequencyTable The map that holds the merged frequency table; it must be thread-safe.
+     */
+    // O(n) see JavaDocs
+    public static void execute(List<FrequencyTabulator<?>> tabulators, Map<String, Integer> frequencyTable) {
+        List<List<String>> partitions = new ArrayList<>();
+        List<List<FrequencyTabulator<?>>> owners = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new ArrayList<>());
+            owners.add(new ArrayList<>());
+        }
+        List<FrequencyTabulator<?>> local = new ArrayList<>();
+        int next = 0;
+        for (FrequencyTabulator<?> ft : tabulators) {
+            String task = task(ft);
+            if (task == null) {
+                local.add(ft);
+            } else {
+                partitions.get(next).add(task);
+                owners.get(next).add(ft);
+                next = (next + 1) % workers;
+            }
+        }
+
+        List<String> setup = workerSetup();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+        for (int i = 0; i < workers; i++) {
+            List<String> partition = partitions.get(i);
+            List<FrequencyTabulator<?>> fallback = owners.get(i);
+            if (partition.isEmpty()) continue;
+            executor.execute(() -> {
+                for (int attempt = 0; attempt <= maxRetries; attempt++) {
+                    try {
+                        Map<String, Integer> partialTable = runWorker(setup, partition, watchdog);
+                        for (Map.Entry<String, Integer> entry : partialTable.entrySet()) {
+                            frequencyTable.merge(entry.getKey(), entry.getValue(), Integer::sum);
+                        }
+                        return;
+                    } catch (IOException e) {
+                        Runner.log(String.format(Strings.PARSER_WORKER_FAILED.get(), attempt + 1));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                Runner.log(Strings.PARSER_WORKER_FALLBACK.get());
+                for (FrequencyTabulator<?> ft : fallback) ft.tabulate(frequencyTable);
+            });
+        }
+        for (FrequencyTabulator<?> ft : local) {
+            executor.execute(() -> ft.tabulate(frequencyTable));
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        watchdog.shutdownNow();
+    }
+
+    private DistributedTabulation() {
+    }
+}
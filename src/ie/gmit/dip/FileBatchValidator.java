@@ -0,0 +1,36 @@
+package ie.gmit.dip;
+
+import java.io.File;
+import java.util.Collection;
+
+/**
+ * <p>A class that takes in a batch of file paths on construction, safely interprets each of them as a <code>File</code> and verifies simultaneously that the files exist.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class FileBatchValidator extends BatchValidator<File> {
+    public FileBatchValidator(Collection<String> inputs) {
+        super(inputs);
+    }
+
+    // O(1) see FileFromConsole.toFile
+    public File recast(String input) {
+        return FileFromConsole.toFile(input);
+    }
+
+    // O(1) see FileFromConsole.isRegularFile
+    public boolean validate(File file) {
+        return FileFromConsole.isRegularFile(file);
+    }
+
+    // O(1) reading file attributes is cheap, a few threads per core hide disk latency
+    protected int threads() {
+        return Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    // O(1) constant
+    protected int timeoutSeconds() {
+        return 5;
+    }
+}
@@ -16,6 +16,17 @@ public class FileFrequencyTabulator extends FrequencyTabulator<File> {
      * @param source The file containing the text to be buffered.
      * @return A <code>BufferedReader</code> for the source <code>file</code>, or <code>null</code> if the object fails to be created.
      */
+    /**
+     * Returns true, as the file can be read again for tabulation after it has been signed.
+     *
+     * @return True.
+     */
+    // O(1) simple getter
+    @Override
+    public boolean isRereadable() {
+        return true;
+    }
+
     // O(1) no loops here
     public BufferedReader read(File source) {
         try {
@@ -24,6 +35,17 @@ public class FileFrequencyTabulator extends FrequencyTabulator<File> {
             return null;
         }
     }
+    /**
+     * Returns the size of the source file.
+     *
+     * @return The size of the file in bytes.
+     */
+    // O(1) simple getter
+    @Override
+    public long getExpectedBytes() {
+        return source().length();
+    }
+
     // O(1) no loops here
     public String toString() {
         try {
@@ -18,8 +18,13 @@ public class FileFromConsole extends ConsoleValidator<File> {
      * @param input A string to be interpreted as a <code>File</code> path; the path is made canonical to make sure the result is unique.
      * @return A <code>File</code> object based on the <code>input</code>.
      */
-    // O(1) no loops here
+    // O(1) see toFile
     public File recast(String input) {
+        return toFile(input);
+    }
+
+    // O(1) no loops here, shared with FileBatchValidator
+    static File toFile(String input) {
         File file = null;
         try {
             file = new File(input);
@@ -35,8 +40,13 @@ public class FileFromConsole extends ConsoleValidator<File> {
      * @param file The <code>File</code> in question.
      * @return True, if the file exists, otherwise false.
      */
-    // O(1) no loops here
+    // O(1) see isRegularFile
     public boolean validate(File file) {
+        return isRegularFile(file);
+    }
+
+    // O(1) no loops here, shared with FileBatchValidator
+    static boolean isRegularFile(File file) {
         boolean isValid;
         try {
             isValid = Files.isRegularFile(file.toPath());
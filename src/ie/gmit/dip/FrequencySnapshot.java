@@ -0,0 +1,317 @@
+package ie.gmit.dip;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * <p>A class that reads and writes frequency tables in a compact, versioned binary format, so that counts can be reused across runs and machines without re-parsing the sources.</p>
+ * <p>A snapshot starts with the magic bytes <code>WCFS</code>, a version byte and the number of entries as a 4-byte <code>int</code>. The entries follow <b>sorted by word</b>; each entry is written as the number of UTF-8 bytes it shares with the previous word, the number of remaining bytes, the remaining bytes, and the count, where every number is a varint. Sorted keys make the prefix compression effective and allow snapshots to be merged in a single streaming pass.</p>
+ * <p>Snapshot files are memory-mapped when read, so a <code>Cursor</code> decodes entries straight from the page cache without copying the file onto the heap.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class FrequencySnapshot {
+    private static final byte[] MAGIC = {'W', 'C', 'F', 'S'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = MAGIC.length + 1 + 4;
+
+    /**
+     * Writes an unsigned integer in 7-bit groups, least significant group first; small counts take a single byte.
+     *
+     * @param out   The stream to be written to.
+     * @param value A non-negative integer.
+     * @throws IOException If the stream cannot be written.
+     */
+    // O(1) at most five bytes
+    static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    // O(1) at most five bytes
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            int b = buffer.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+            if (shift > 28) throw new IOException("Malformed varint.");
+        }
+    }
+
+    /**
+     * Writes entries that are already <b>sorted by word</b> in the snapshot format; the header is written by the caller.
+     */
+    // O(n) one pass with n being the total length of the words
+    private static int writeEntries(Iterator<Map.Entry<String, Integer>> entries, DataOutput out) throws IOException {
+        byte[] previous = new byte[0];
+        int written = 0;
+        while (entries.hasNext()) {
+            Map.Entry<String, Integer> entry = entries.next();
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            int shared = 0;
+            int limit = Math.min(previous.length, key.length);
+            while (shared < limit && previous[shared] == key[shared]) shared++;
+            writeVarint(out, shared);
+            writeVarint(out, key.length - shared);
+            out.write(key, shared, key.length - shared);
+            writeVarint(out, entry.getValue());
+            previous = key;
+            written++;
+        }
+        return written;
+    }
+
+    // O(1) no loops here
+    private static void writeHeader(DataOutput out, int entries) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(entries);
+    }
+
+    /**
+     * <p>Writes a frequency table to a stream in the snapshot format. The entries are sorted by word first.</p>
+     * <p>This method runs in <b>linearithmic time O(n log n)</b> due to sorting.</p>
+     *
+     * @param entries The entries of a frequency table, in any order.
+     * @param out     The stream to be written to. It is flushed but not closed.
+     * @throws IOException If the stream cannot be written.
+     */
+    // O(n log n) see JavaDocs
+    public static void write(Collection<Map.Entry<String, Integer>> entries, OutputStream out) throws IOException {
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(entries);
+        sorted.sort(Map.Entry.comparingByKey());
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        writeHeader(data, sorted.size());
+        writeEntries(sorted.iterator(), data);
+        data.flush();
+    }
+
+    /**
+     * <p>Writes a frequency table to a snapshot file, replacing the file if it exists.</p>
+     * <p>This method runs in <b>linearithmic time O(n log n)</b> due to sorting.</p>
+     *
+     * @param entries The entries of a frequency table, in any order.
+     * @param file    The snapshot file.
+     * @throws IOException If the file cannot be written.
+     */
+    // O(n log n) see write
+    public static void export(Collection<Map.Entry<String, Integer>> entries, File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(entries, out);
+        }
+    }
+
+    /**
+     * <p>Opens a snapshot file for reading by memory-mapping it.</p>
+     * <p>This method runs in <b>constant time O(1)</b>; entries are only decoded as the cursor advances.</p>
+     *
+     * @param file The snapshot file.
+     * @return A <code>Cursor</code> positioned before the first entry.
+     * @throws IOException If the file cannot be mapped or is not a snapshot.
+     */
+    // O(1) see JavaDocs
+    public static Cursor open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // The mapping stays valid after the channel is closed.
+            return new Cursor(buffer);
+        }
+    }
+
+    /**
+     * <p>Reads a snapshot from a stream, such as the output of a worker process, into a heap buffer.</p>
+     * <p>This method runs in <b>linear time O(n)</b>.</p>
+     *
+     * @param in The stream to be read from; it is read to the end but not closed.
+     * @return A <code>Cursor</code> positioned before the first entry.
+     * @throws IOException If the stream cannot be read or does not contain a snapshot.
+     */
+    // O(n) see JavaDocs
+    public static Cursor read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[65536];
+        int length;
+        while ((length = in.read(buffer)) != -1) bytes.write(buffer, 0, length);
+        return new Cursor(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * <p>Checks if a file starts with the snapshot header of a supported version.</p>
+     *
+     * @param file The file in question.
+     * @return True, if the file looks like a snapshot, or else, false.
+     */
+    // O(1) reads the header only
+    public static boolean isSnapshot(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            return Arrays.equals(magic, MAGIC) && in.readByte() == VERSION;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * <p>Adds every count in a snapshot to <code>map</code>.</p>
+     * <p>This method runs in <b>linear time O(n)</b>.</p>
+     *
+     * @param cursor A cursor positioned before the first entry.
+     * @param map    The map that holds the frequency table.
+     * @throws IOException If the snapshot is malformed.
+     */
+    // O(n) see JavaDocs
+    public static void mergeInto(Cursor cursor, Map<String, Integer> map) throws IOException {
+        while (cursor.next()) map.merge(cursor.key(), cursor.count(), Integer::sum);
+    }
+
+    /**
+     * <p>Merges several snapshot files into one by adding up the counts of equal words. The inputs are read in a single streaming k-way pass, so the merged table is never held in memory.</p>
+     * <p>This method runs in <b>O(n log k)</b> time with n being the total number of entries and k being the number of inputs.</p>
+     *
+     * @param inputs The snapshot files to be merged.
+     * @param output The merged snapshot file; it is replaced if it exists.
+     * @throws IOException If any file cannot be read or written.
+     */
+    // O(n log k) see JavaDocs
+    public static void merge(List<File> inputs, File output) throws IOException {
+        List<Cursor> cursors = new ArrayList<>();
+        for (File input : inputs) cursors.add(open(input));
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+            file.setLength(0);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.getFD())));
+            writeHeader(out, 0);
+            int entries = writeEntries(mergedEntries(cursors), out);
+            out.flush();
+            file.seek(MAGIC.length + 1);
+            file.writeInt(entries);
+        }
+    }
+
+    /**
+     * <p>Returns an iterator over the sorted union of several cursors, with the counts of equal words added up.</p>
+     *
+     * @param cursors Cursors positioned before their first entries.
+     * @return An iterator of entries sorted by word.
+     * @throws IOException If any snapshot is malformed.
+     */
+    // O(log k) per entry with k being the number of cursors
+    static Iterator<Map.Entry<String, Integer>> mergedEntries(List<Cursor> cursors) throws IOException {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, cursors.size()), Comparator.comparing(Cursor::key));
+        for (Cursor cursor : cursors) if (cursor.next()) queue.add(cursor);
+        return new Iterator<Map.Entry<String, Integer>>() {
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            public Map.Entry<String, Integer> next() {
+                if (queue.isEmpty()) throw new NoSuchElementException();
+                String key = queue.peek().key();
+                int count = 0;
+                try {
+                    while (!queue.isEmpty() && queue.peek().key().equals(key)) {
+                        Cursor cursor = queue.poll();
+                        count += cursor.count();
+                        if (cursor.next()) queue.add(cursor);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return new AbstractMap.SimpleImmutableEntry<>(key, count);
+            }
+        };
+    }
+
+    private FrequencySnapshot() {
+    }
+
+    /**
+     * <p>A forward-only reader over the entries of a snapshot. Words are rebuilt from their shared prefix in a reusable byte buffer and only decoded into a <code>String</code> when <code>key</code> is called.</p>
+     */
+    public static final class Cursor {
+        private final ByteBuffer BUFFER;
+        private final int ENTRIES;
+        private byte[] keyBytes = new byte[64];
+        private int keyLength;
+        private String key;
+        private int count;
+        private int index;
+
+        private Cursor(ByteBuffer buffer) throws IOException {
+            this.BUFFER = buffer;
+            byte[] magic = new byte[MAGIC.length];
+            if (buffer.remaining() < HEADER_BYTES) throw new IOException("Not a frequency snapshot.");
+            buffer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a frequency snapshot.");
+            if (buffer.get() != VERSION) throw new IOException("Unsupported snapshot version.");
+            this.ENTRIES = buffer.getInt();
+        }
+
+        /**
+         * Returns the number of entries in the snapshot.
+         *
+         * @return The number of entries.
+         */
+        // O(1) simple getter
+        public int size() {
+            return ENTRIES;
+        }
+
+        /**
+         * Advances to the next entry.
+         *
+         * @return True, if there is another entry, or else, false.
+         * @throws IOException If the snapshot is malformed.
+         */
+        // O(k) with k being the length of the suffix
+        public boolean next() throws IOException {
+            if (index >= ENTRIES) return false;
+            try {
+                int shared = readVarint(BUFFER);
+                int suffix = readVarint(BUFFER);
+                if (shared > keyLength) throw new IOException("Malformed snapshot entry.");
+                if (shared + suffix > keyBytes.length) keyBytes = Arrays.copyOf(keyBytes, Math.max(keyBytes.length * 2, shared + suffix));
+                BUFFER.get(keyBytes, shared, suffix);
+                keyLength = shared + suffix;
+                count = readVarint(BUFFER);
+            } catch (RuntimeException e) { // BufferUnderflowException on a truncated file
+                throw new IOException("Truncated snapshot.", e);
+            }
+            key = null;
+            index++;
+            return true;
+        }
+
+        /**
+         * Returns the word of the current entry.
+         *
+         * @return The word.
+         */
+        // O(k) on first call per entry, O(1) afterwards
+        public String key() {
+            if (key == null) key = new String(keyBytes, 0, keyLength, StandardCharsets.UTF_8);
+            return key;
+        }
+
+        /**
+         * Returns the count of the current entry.
+         *
+         * @return The number of occurrences.
+         */
+        // O(1) simple getter
+        public int count() {
+            return count;
+        }
+    }
+}
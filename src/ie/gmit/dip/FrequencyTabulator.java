@@ -2,8 +2,11 @@ package ie.gmit.dip;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 /**
@@ -14,8 +17,109 @@ import java.util.StringTokenizer;
  * @since 1.8
  */
 public abstract class FrequencyTabulator<T> implements FrequencyTabulation<T> {
+    private static final int LANGUAGE_SAMPLE_SIZE = 500;
+    private static final int PROGRESS_SAMPLE_LINES = 64; // Progress is published, and cancellation checked, once per this many lines rather than per token.
+    static final int STREAM_BUFFER_SIZE = 1 << 16; // For streamed sources, so that fewer, larger reads are made from pipes and sockets.
     private final T SOURCE;
     private final Map<String, Integer> FREQUENCY_TABLE;
+    private volatile long bytesRead;
+    private volatile long tokensRead;
+    private volatile long startNanos;
+    private volatile boolean isCancelled;
+    private volatile int[] signature;
+    private volatile SourceProfile profile;
+
+    /**
+     * Returns the amount of text read from the source so far, counted in characters including line breaks, which equals the number of bytes for ASCII text.
+     *
+     * @return The number of characters read, as of the last progress update.
+     */
+    // O(1) simple getter
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of tokens read from the source so far, including discarded ones.
+     *
+     * @return The number of tokens read, as of the last progress update.
+     */
+    // O(1) simple getter
+    public long getTokensRead() {
+        return tokensRead;
+    }
+
+    /**
+     * Returns the size of the source, if it is known before it has been read completely. Subtypes whose size is known override this method.
+     *
+     * @return The size of the source in bytes, or -1 if it is unknown, as for streams.
+     */
+    // O(1) simple getter
+    public long getExpectedBytes() {
+        return -1;
+    }
+
+    /**
+     * <p>Estimates the time left until the source has been read, from the rate at which it has been read so far.</p>
+     *
+     * @return The estimated time left in milliseconds, or -1 if the size of the source is unknown or nothing has been read yet.
+     */
+    // O(1) no loops just computation
+    public long getEtaMillis() {
+        long expected = getExpectedBytes();
+        long read = getBytesRead();
+        if (expected <= 0 || read <= 0) return -1;
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        return Math.max(0, elapsedMillis * (expected - read) / read);
+    }
+
+    /**
+     * Returns the MinHash signature of the source, which is made while the source is read if <code>Tabulators</code> removes near-duplicates.
+     *
+     * @return The signature from the last time the source was read, or <code>null</code> if none was made.
+     */
+    // O(1) simple getter
+    public int[] getSignature() {
+        return signature;
+    }
+
+    /**
+     * Returns the profile of the source, which is made by <code>profile</code>.
+     *
+     * @return The profile from the last time the source was profiled, or <code>null</code> if it has not been.
+     */
+    // O(1) simple getter
+    public SourceProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns whether the source can be read more than once with the same content, so that it can be signed before it is tabulated. Subtypes of such sources override this method.
+     *
+     * @return False, as streams can only be read once.
+     */
+    // O(1) simple getter
+    public boolean isRereadable() {
+        return false;
+    }
+
+    /**
+     * <p>Asks the tabulator to stop reading. It stops at its next progress update and keeps the counts it has made so far, so a cancelled render still shows the words read up to that point.</p>
+     */
+    // O(1) simple setter
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Returns whether <code>cancel</code> has been called since the tabulator was last started.
+     *
+     * @return True, if the tabulator has been cancelled, or else, false.
+     */
+    // O(1) simple getter
+    public boolean isCancelled() {
+        return isCancelled;
+    }
 
     /**
      * <p>Returns the <code>source</code>. This gives subtypes the access they need to override <code>toString</code>.</p>
@@ -36,24 +140,20 @@ public abstract class FrequencyTabulator<T> implements FrequencyTabulation<T> {
     public abstract String toString();
 
     /**
-     * <p>Returns a <code>StringTokenizer</code> that reads the content of <code>line</code> token by token after removing tags, English contractions, and any non-word artefacts.</p>
-     * <p>This method runs in <b>linear time O(n)</b> because it calls methods for String manipulation, such as <code>replaceAll</code> and <code>toLowerCase</code>.</p>
+     * <p>Returns a <code>StringTokenizer</code> that reads the content of <code>line</code> token by token after removing tags, English contractions, and any non-word artefacts. Words of any script are kept whole; see <code>UnicodeTokenizer</code>.</p>
+     * <p>This method runs in <b>linear time O(n)</b> in a single pass over the line.</p>
      *
      * @param line The <code>String</code> containing tokens to be buffered.
      * @return A <code>StringTokenizer</code> for the parameter <code>line</code>.
      */
     // O(n) see JavaDocs
     public StringTokenizer tokenize(String line) {
-        String pattern = Strings.PARSER_PATTERN_HTML.get() + "|" + Strings.PARSER_PATTERN_CONTRACTIONS.get(); // These two patterns should be safe to go at the same time.
-        return new StringTokenizer(
-                line.replaceAll(pattern, " ")
-                        .replaceAll(Strings.PARSER_PATTERN_ARTEFACTS.get(), " ")
-                        .toLowerCase()
-        );
+        return UnicodeTokenizer.tokenize(line);
     }
 
     /**
      * <p>If the target <code>map</code> already contains the <code>word</code> as a key, increases its value by 1; or else, adds the <code>word</code> as a new key with an assigned value of 1.</p>
+     * <p>The increment is done with <code>merge</code>, which is atomic for the thread-safe tables used by <code>Tabulators</code>, so no counts are lost when several tabulators share one table.</p>
      * <p>This method runs in <b>constant time O(1)</b> (as per Golden Rule).</p>
      *
      * @param word A single token.
@@ -61,9 +161,7 @@ public abstract class FrequencyTabulator<T> implements FrequencyTabulation<T> {
      */
     // O(1) see JavaDocs
     public void put(String word, Map<String, Integer> map) {
-        int occurrences = 1;
-        if (map.containsKey(word)) occurrences = map.get(word) + 1;
-        map.put(word, occurrences);
+        map.merge(word, 1, Integer::sum);
     }
 
     public FrequencyTabulator(T type, Map<String, Integer> frequencyMap) {
@@ -98,28 +196,136 @@ public abstract class FrequencyTabulator<T> implements FrequencyTabulation<T> {
     }
 
     /**
-     * <p>Executes <code>read</code> (constant time), <code>tokenize</code> (linear time) for each line, and <code>put</code> (constant time) for each word.</p>
+     * <p>Executes <code>read</code> (constant time), <code>tokenize</code> (linear time) for each line, and <code>put</code> (constant time) for each word, counting into the table passed on construction.</p>
      * <p>This method runs in linear time O(n) overall.</p>
      */
-    // O(n) see JavaDocs
+    // O(n) see tabulate
     public void run() {
+        tabulate(this.FREQUENCY_TABLE);
+    }
+
+    /**
+     * Filters, normalizes and counts a single token, or breaks the phrase window if the token is discarded. While profiling, the token is only added to the profile.
+     */
+    // O(1) amortised, see put and PhraseCounter.accept
+    private void count(String token, int minWordLength, Set<String> stopWords, TokenNormalizer normalizer, PhraseCounter phrases, Map<String, Integer> frequencyTable, SourceProfile profile) {
+        if (profile != null) {
+            profile.add(token, stopWords.contains(token));
+        } else if (UnicodeTokenizer.isLongEnough(token, minWordLength) && !(stopWords.contains(token))) {
+            if (normalizer != null) token = normalizer.normalize(token);
+            if (phrases != null) phrases.accept(token);
+            else put(token, frequencyTable);
+        } else if (phrases != null) phrases.breakWindow();
+    }
+
+    /**
+     * <p>Executes <code>read</code> (constant time), <code>tokenize</code> (linear time) for each line, and <code>put</code> (constant time) for each word, counting into <code>frequencyTable</code>. This lets <code>Tabulators</code> choose the table backend at execution time.</p>
+     * <p>Tokens that pass the length and stop word filters are reduced to their base form by the normalizer chosen in <code>Tabulators</code>, if any.</p>
+     * <p>If stop words for several languages are loaded, the first tokens of the source are held back until its language has been detected, and the stop words of that language are discarded as well.</p>
+     * <p>If <code>Tabulators</code> is set to count phrases, consecutive words are counted as phrases by a <code>PhraseCounter</code> instead, and discarded tokens break the phrase window.</p>
+     * <p>If <code>Tabulators</code> removes near-duplicates, a MinHash signature of all tokens, including discarded ones, is made in the same pass; see <code>getSignature</code>.</p>
+     * <p>Every few lines, the amount of text and tokens read is published for <code>getBytesRead</code> and <code>getTokensRead</code>, and reading stops early, keeping the counts made so far, if the tabulator has been cancelled or has exceeded the time limit set in <code>Tabulators</code>.</p>
+     * <p>This method runs in linear time O(n) overall.</p>
+     *
+     * @param frequencyTable The map that holds the frequency table.
+     */
+    // O(n) see JavaDocs
+    public void tabulate(Map<String, Integer> frequencyTable) {
+        scan(frequencyTable, null);
+    }
+
+    /**
+     * <p>Reads the source only to make its MinHash signature, without counting anything, so that <code>Tabulators</code> can leave out near-duplicates before they are tabulated. Progress, cancellation and the time limit apply as in <code>tabulate</code>.</p>
+     * <p>This method runs in linear time O(n) overall.</p>
+     */
+    // O(n) see scan
+    public void sign() {
+        scan(null, null);
+    }
+
+    /**
+     * <p>Reads the source only to profile it, see <code>SourceProfile</code>: tokens are counted, their distinct number estimated and stop words recognised, but no frequency table is built, no normalization is done and no phrases are formed. Progress, cancellation and the time limit apply as in <code>tabulate</code>.</p>
+     * <p>This method runs in linear time O(n) overall, in memory that does not grow with the source.</p>
+     */
+    // O(n) see scan
+    public void profile() {
+        SourceProfile result = new SourceProfile(toString());
+        scan(null, result);
+        profile = result;
+    }
+
+    /**
+     * Reads and tokenizes the source, counting into <code>frequencyTable</code> or adding to <code>profile</code> unless both are <code>null</code>, and signing it if asked to; see <code>tabulate</code>.
+     */
+    // O(n) see tabulate
+    private void scan(Map<String, Integer> frequencyTable, SourceProfile profile) {
+        bytesRead = 0;
+        tokensRead = 0;
+        isCancelled = false;
+        signature = null;
+        startNanos = System.nanoTime();
+        long timeout = Tabulators.getSourceTimeoutSeconds();
+        long deadline = timeout > 0 ? startNanos + timeout * 1_000_000_000L : Long.MAX_VALUE;
         BufferedReader reader = read(this.SOURCE);
         if (reader != null) {
+            long bytes = 0;
+            long tokens = 0;
+            int lines = 0;
+            int minWordLength = Tabulators.getMinWordLength();
+            Set<String> stopWords = Tabulators.getStopWords(); // getStopWords returns a copy, so it is fetched once rather than per token.
+            boolean isCounting = frequencyTable != null || profile != null;
+            TokenNormalizer normalizer = frequencyTable != null ? Tabulators.getNormalizer() : null;
+            PhraseCounter phrases = frequencyTable != null && Tabulators.getPhraseLength() > 1 ? new PhraseCounter(Tabulators.getPhraseLength()) : null;
+            List<String> sample = isCounting && Tabulators.hasLanguageStopWords() ? new ArrayList<>(LANGUAGE_SAMPLE_SIZE) : null;
+            MinHash minHash = !isCounting || (frequencyTable != null && Tabulators.getDeduplication() != Deduplication.OFF) ? new MinHash() : null;
             String nextLine;
             while (true) {
                 try {
                     nextLine = reader.readLine();
                     if (nextLine == null) break;
+                    bytes += nextLine.length() + 1;
+                    if (++lines == PROGRESS_SAMPLE_LINES) {
+                        lines = 0;
+                        bytesRead = bytes;
+                        tokensRead = tokens;
+                        if (isCancelled) break;
+                        if (System.nanoTime() > deadline) {
+                            Runner.log(String.format(Strings.PARSER_SOURCE_TIMEOUT.get(), this));
+                            break;
+                        }
+                    }
                     StringTokenizer tokenizer = tokenize(nextLine);
                     while (tokenizer.hasMoreTokens()) {
                         String token = tokenizer.nextToken();
-                        if ((token.length() >= Tabulators.getMinWordLength()) && !(Tabulators.getStopWords().contains(token)))
-                            put(token, this.FREQUENCY_TABLE);
+                        tokens++;
+                        if (minHash != null) minHash.add(token);
+                        if (!isCounting) continue;
+                        if (sample != null) {
+                            sample.add(token);
+                            if (sample.size() < LANGUAGE_SAMPLE_SIZE) continue;
+                            stopWords = Tabulators.getStopWords(Tabulators.detectLanguage(sample));
+                            for (String held : sample) count(held, minWordLength, stopWords, normalizer, phrases, frequencyTable, profile);
+                            sample = null;
+                        } else count(token, minWordLength, stopWords, normalizer, phrases, frequencyTable, profile);
                     }
                 } catch (IOException e) {
                     Runner.log(Strings.PARSER_ERROR_READING_SOURCE.get());
+                    break; // A broken stream would fail again on every further read; the counts made so far are kept.
                 }
             }
+            bytesRead = bytes;
+            tokensRead = tokens;
+            if (minHash != null) signature = minHash.signature();
+            if (sample != null) { // The source was shorter than the sample.
+                stopWords = Tabulators.getStopWords(Tabulators.detectLanguage(sample));
+                for (String held : sample) count(held, minWordLength, stopWords, normalizer, phrases, frequencyTable, profile);
+            }
+            if (phrases != null) phrases.flushInto(frequencyTable);
+            if (profile != null) profile.finish(getBytesRead(), System.nanoTime() - startNanos); // Subtypes may count the bytes read differently.
+            try {
+                reader.close(); // Releases the file handle, pipe or connection as soon as the source is done.
+            } catch (IOException ignored) {
+            }
         } else Runner.log(Strings.PARSER_ERROR_READING_SOURCE.get());
     }
 }
\ No newline at end of file
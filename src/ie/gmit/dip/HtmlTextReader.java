@@ -0,0 +1,269 @@
+package ie.gmit.dip;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>A <code>Reader</code> that turns an HTML document into its <b>visible text</b> as it is read, so that only the words a visitor would see reach the tokenizer.</p>
+ * <p>The document is scanned once, character by character, by a small state machine rather than line by line with regular expressions, so tags and comments may span any number of lines. The contents of <code>script</code> and <code>style</code> elements are skipped without being looked at beyond their closing tag, and boilerplate elements such as <code>nav</code>, <code>footer</code> and <code>aside</code> are skipped with everything inside them. Entities are decoded inline; those that stand for punctuation become spaces, as the tokenizer would treat them as separators anyway.</p>
+ * <p>Block-level tags end a line, so that words in neighbouring paragraphs or table cells are never joined, while inline tags such as <code>b</code> or <code>span</code> leave the text around them untouched.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class HtmlTextReader extends Reader {
+    private static final int TEXT = 0, TAG_OPEN = 1, TAG_NAME = 2, TAG_ATTRIBUTES = 3, BANG = 4, COMMENT = 5, DECLARATION = 6, RAW_TEXT = 7, ENTITY = 8;
+    private static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<>(Arrays.asList("script", "style"));
+    private static final Set<String> SKIPPED_ELEMENTS = new HashSet<>(Arrays.asList("nav", "footer", "aside", "noscript", "svg", "template", "select"));
+    private static final Set<String> BLOCK_ELEMENTS = new HashSet<>(Arrays.asList("address", "article", "blockquote", "br", "dd", "div", "dl", "dt", "figcaption", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "li", "main", "ol", "p", "pre", "section", "table", "td", "th", "title", "tr", "ul"));
+    private static final String[] ACCENTS = {"acute", "\u0301", "grave", "\u0300", "circ", "\u0302", "tilde", "\u0303", "uml", "\u0308", "ring", "\u030A", "cedil", "\u0327"}; // Entity suffixes and the combining marks they stand for
+    private static final int MAX_NAME_LENGTH = 16;
+    private final Reader IN;
+    private final char[] INPUT = new char[8192];
+    private final StringBuilder OUTPUT = new StringBuilder(8192); // Text decoded from the last input chunk that has not been returned yet
+    private final StringBuilder NAME = new StringBuilder(); // The tag name or entity being read
+    private int outputPosition;
+    private int state = TEXT;
+    private boolean isClosingTag;
+    private char quote; // The quote character of the attribute value being read, or 0
+    private char previous; // The previous character inside a tag, to recognise "/>"
+    private int dashes; // Consecutive dashes read inside a comment
+    private String rawTextEnd; // "</script" or "</style" while their contents are skipped
+    private int rawTextMatched;
+    private int skipDepth; // The number of open boilerplate elements
+    private volatile long charsRead;
+    private boolean isEndOfInput;
+
+    /**
+     * @param in The reader of the HTML document.
+     */
+    public HtmlTextReader(Reader in) {
+        this.IN = in;
+    }
+
+    /**
+     * Returns the number of characters of HTML read from the underlying reader so far, including markup, which makes it comparable to the size of the document.
+     *
+     * @return The number of characters read.
+     */
+    // O(1) simple getter
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    /**
+     * <p>Reads visible text into <code>buffer</code>. Input is read from the underlying reader in chunks until some text has been decoded or the document has ended.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of input characters consumed.</p>
+     *
+     * @param buffer The destination buffer.
+     * @param offset The offset at which to start storing characters.
+     * @param length The maximum number of characters to read.
+     * @return The number of characters read, or -1 if the document has ended.
+     * @throws IOException If the underlying reader fails.
+     */
+    // O(n) see JavaDocs
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        while (outputPosition == OUTPUT.length()) {
+            if (isEndOfInput) return -1;
+            OUTPUT.setLength(0);
+            outputPosition = 0;
+            int read = IN.read(INPUT, 0, INPUT.length);
+            if (read < 0) {
+                isEndOfInput = true;
+                if (state == ENTITY) emit(' ').emit(NAME); // An unfinished entity at the very end is plain text.
+                continue;
+            }
+            charsRead += read;
+            for (int i = 0; i < read; i++) {
+                if (!accept(INPUT[i])) i--; // The character ended a construct and is read again in the new state.
+            }
+        }
+        int n = Math.min(length, OUTPUT.length() - outputPosition);
+        OUTPUT.getChars(outputPosition, outputPosition + n, buffer, offset);
+        outputPosition += n;
+        return n;
+    }
+
+    /**
+     * Advances the state machine by one character.
+     *
+     * @return False, if the character has not been consumed and must be passed in again.
+     */
+    // O(1) amortised; a tag or entity name is buffered up to a fixed length
+    private boolean accept(char c) {
+        switch (state) {
+            case TEXT:
+                if (c == '<') {
+                    state = TAG_OPEN;
+                } else if (c == '&') {
+                    NAME.setLength(0);
+                    state = ENTITY;
+                } else emit(c);
+                return true;
+            case TAG_OPEN:
+                NAME.setLength(0);
+                isClosingTag = false;
+                previous = 0;
+                quote = 0;
+                if (c == '/') {
+                    isClosingTag = true;
+                    state = TAG_NAME;
+                } else if (c == '!') {
+                    dashes = 0;
+                    state = BANG;
+                } else if (c == '?') {
+                    state = DECLARATION;
+                } else if (isAsciiLetter(c)) {
+                    NAME.append(Character.toLowerCase(c));
+                    state = TAG_NAME;
+                } else {
+                    emit(' '); // A lone "<" is not a tag.
+                    state = TEXT;
+                    return false;
+                }
+                return true;
+            case TAG_NAME:
+                if (isAsciiLetter(c) || (c >= '0' && c <= '9')) {
+                    if (NAME.length() < MAX_NAME_LENGTH) NAME.append(Character.toLowerCase(c));
+                    return true;
+                }
+                state = TAG_ATTRIBUTES;
+                return false;
+            case TAG_ATTRIBUTES:
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    endTag(previous == '/');
+                }
+                previous = c;
+                return true;
+            case BANG:
+                if (c == '-' && dashes == 0) {
+                    dashes = 1;
+                    return true;
+                }
+                if (c == '-') {
+                    dashes = 0;
+                    state = COMMENT;
+                    return true;
+                }
+                state = DECLARATION; // <!DOCTYPE ...> or <![CDATA[ ... ]]>
+                return false;
+            case COMMENT:
+                if (c == '>' && dashes >= 2) state = TEXT;
+                dashes = c == '-' ? dashes + 1 : 0;
+                return true;
+            case DECLARATION:
+                if (c == '>') state = TEXT;
+                return true;
+            case RAW_TEXT:
+                if (Character.toLowerCase(c) == rawTextEnd.charAt(rawTextMatched)) {
+                    if (++rawTextMatched == rawTextEnd.length()) {
+                        NAME.setLength(0);
+                        isClosingTag = true;
+                        previous = 0;
+                        quote = 0;
+                        state = TAG_ATTRIBUTES; // The rest of the closing tag
+                    }
+                } else rawTextMatched = c == '<' ? 1 : 0;
+                return true;
+            default: // ENTITY
+                if (c == ';' && NAME.length() > 0) {
+                    emit(decode(NAME));
+                    state = TEXT;
+                    return true;
+                }
+                if (NAME.length() < MAX_NAME_LENGTH && (Character.isLetterOrDigit(c) || (c == '#' && NAME.length() == 0))) {
+                    NAME.append(c);
+                    return true;
+                }
+                emit(' ').emit(NAME); // Not an entity, as in "AT&T"
+                state = TEXT;
+                return false;
+        }
+    }
+
+    // O(1) updates the element nesting when a tag ends with ">"
+    private void endTag(boolean isSelfClosing) {
+        String name = NAME.toString();
+        state = TEXT;
+        if (!isClosingTag && !isSelfClosing && RAW_TEXT_ELEMENTS.contains(name)) {
+            rawTextEnd = "</" + name;
+            rawTextMatched = 0;
+            state = RAW_TEXT;
+            return;
+        }
+        if (SKIPPED_ELEMENTS.contains(name)) {
+            if (!isClosingTag && !isSelfClosing) skipDepth++;
+            else if (isClosingTag && skipDepth > 0) skipDepth--;
+        }
+        if (BLOCK_ELEMENTS.contains(name)) emit('\n');
+    }
+
+    /**
+     * Returns the text an entity stands for, given its name without "&amp;" and ";". Numeric entities become their character, accented Latin letters such as "eacute" their composed letter, and all other named entities, which stand for spaces, punctuation and symbols, a space.
+     */
+    // O(1) entity names have a bounded length
+    private static String decode(CharSequence entity) {
+        String name = entity.toString();
+        if (name.charAt(0) == '#') {
+            try {
+                boolean isHex = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X');
+                int cp = Integer.parseInt(name.substring(isHex ? 2 : 1), isHex ? 16 : 10);
+                if (cp == '<' || cp == '&' || !Character.isValidCodePoint(cp)) return " "; // Kept away from the tokenizer, which would read markup into them
+                return new String(Character.toChars(cp));
+            } catch (NumberFormatException e) {
+                return " ";
+            }
+        }
+        switch (name) {
+            case "szlig":
+                return "\u00DF";
+            case "aelig":
+                return "\u00E6";
+            case "AElig":
+                return "\u00C6";
+            case "oslash":
+                return "\u00F8";
+            case "Oslash":
+                return "\u00D8";
+        }
+        for (int i = 0; i < ACCENTS.length; i += 2) {
+            if (name.length() == ACCENTS[i].length() + 1 && name.endsWith(ACCENTS[i]) && isAsciiLetter(name.charAt(0))) {
+                return Normalizer.normalize(name.charAt(0) + ACCENTS[i + 1], Normalizer.Form.NFC);
+            }
+        }
+        return " ";
+    }
+
+    // O(1) no loops here
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    // O(n) with n being the length of the text; text inside boilerplate elements is dropped
+    private HtmlTextReader emit(CharSequence text) {
+        if (skipDepth == 0) OUTPUT.append(text);
+        return this;
+    }
+
+    // O(1) no loops here
+    private HtmlTextReader emit(char c) {
+        if (skipDepth == 0) OUTPUT.append(c);
+        return this;
+    }
+
+    // O(1) closes the underlying reader
+    @Override
+    public void close() throws IOException {
+        IN.close();
+    }
+}
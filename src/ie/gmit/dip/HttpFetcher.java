@@ -0,0 +1,255 @@
+package ie.gmit.dip;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+
+/**
+ * <p>A class that fetches the content of URL sources through a local response cache. Every body is stored on disk together with its <code>ETag</code> and <code>Last-Modified</code> headers, and later fetches of the same URL send <code>If-None-Match</code> and <code>If-Modified-Since</code>, so an unchanged page costs a single <code>304 Not Modified</code> response.</p>
+ * <p>Bodies are always read to the end and their streams closed, which lets the JDK return the connection to its keep-alive cache for the next request to the same host. The cache is capped in size; the least recently used bodies are deleted first.</p>
+ * <p>The cache lives in the user's home directory rather than the shared temporary directory, where another local user could plant entries under the predictable names, and it is readable only by its owner where the file system supports it. Reading an entry, confirming it with a <code>304</code> answer and opening its body happen under the same lock as eviction, so a confirmed body cannot be deleted before it is opened.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class HttpFetcher {
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int READ_TIMEOUT = 15000;
+    private static final File CACHE_DIR = new File(System.getProperty("user.home"), ".wcloud" + File.separator + "http-cache");
+    private static final Object LOCK = new Object(); // Guards the cache entries against eviction while they are read, confirmed or replaced
+    private static long maxCacheBytes = 64L * 1024 * 1024;
+
+    static {
+        if (System.getProperty("http.maxConnections") == null) System.setProperty("http.maxConnections", "16"); // Idle keep-alive connections kept per host, the JDK's default is 5.
+    }
+
+    /**
+     * Returns the size limit of the response cache in megabytes.
+     *
+     * @return The size limit in megabytes.
+     */
+    // O(1) simple getter/setter
+    public static int getMaxCacheMegabytes() {
+        return (int) (maxCacheBytes / (1024 * 1024));
+    }
+
+    /**
+     * Sets the size limit of the response cache in megabytes.
+     *
+     * @param megabytes The new size limit in megabytes.
+     */
+    // O(1) simple getter/setter
+    public static void setMaxCacheMegabytes(int megabytes) {
+        maxCacheBytes = megabytes * 1024L * 1024L;
+        Runner.log(Strings.VAR_SET_HTTP_CACHE_SIZE.get());
+    }
+
+    // O(n) with n being the length of the URL
+    private static String key(URL url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 20; i++) hex.append(String.format("%02x", digest[i]));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform is required to support SHA-256.
+        }
+    }
+
+    /**
+     * <p>Returns the cached response for <code>url</code>, revalidating it with the server first. If the server answers <code>304</code>, the cached body is used; if it answers <code>200</code>, the new body replaces the cached one. The body is opened before the cache is unlocked, so the returned response must be closed.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the size of a new body, disregarding IO latency.</p>
+     *
+     * @param url The URL to be fetched.
+     * @return The up-to-date response.
+     * @throws IOException If the server cannot be reached, does not answer in time, or answers with any other status.
+     */
+    // O(n) see JavaDocs
+    public static Response fetch(URL url) throws IOException {
+        String key = key(url);
+        File body = new File(CACHE_DIR, key + ".body");
+        File meta = new File(CACHE_DIR, key + ".meta");
+        Properties headers = new Properties();
+        synchronized (LOCK) {
+            if (body.isFile() && meta.isFile()) {
+                try (InputStream in = new FileInputStream(meta)) {
+                    headers.load(in);
+                } catch (IOException ignored) {
+                    headers.clear(); // A broken entry is simply fetched again.
+                }
+            }
+        }
+
+        HttpURLConnection huc = (HttpURLConnection) url.openConnection();
+        huc.setConnectTimeout(CONNECT_TIMEOUT);
+        huc.setReadTimeout(READ_TIMEOUT);
+        if (headers.getProperty("etag") != null) huc.setRequestProperty("If-None-Match", headers.getProperty("etag"));
+        if (headers.getProperty("last-modified") != null) huc.setRequestProperty("If-Modified-Since", headers.getProperty("last-modified"));
+
+        int code = huc.getResponseCode();
+        if (code == HttpURLConnection.HTTP_NOT_MODIFIED && !headers.isEmpty()) {
+            drain(huc.getInputStream());
+            synchronized (LOCK) {
+                if (body.isFile()) {
+                    body.setLastModified(System.currentTimeMillis()); // Marks the entry as recently used.
+                    return new Response(body, headers.getProperty("content-type"), false);
+                }
+            }
+            return fetch(url); // Evicted by another fetch since its headers were read, together with its headers, so this request is unconditional.
+        }
+        if (code != HttpURLConnection.HTTP_OK) {
+            InputStream error = huc.getErrorStream();
+            if (error != null) drain(error);
+            throw new IOException("Unexpected HTTP status " + code + ".");
+        }
+
+        createCacheDir();
+        File temp = File.createTempFile(key, ".tmp", CACHE_DIR);
+        try (InputStream in = huc.getInputStream()) {
+            Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        headers.clear();
+        if (huc.getHeaderField("ETag") != null) headers.setProperty("etag", huc.getHeaderField("ETag"));
+        if (huc.getHeaderField("Last-Modified") != null) headers.setProperty("last-modified", huc.getHeaderField("Last-Modified"));
+        if (huc.getContentType() != null) headers.setProperty("content-type", huc.getContentType());
+        synchronized (LOCK) {
+            try {
+                Files.move(temp.toPath(), body.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                temp.delete(); // Only left over if renaming failed
+            }
+            try (OutputStream out = new FileOutputStream(meta)) {
+                headers.store(out, url.toString());
+            }
+            evict(body);
+            return new Response(body, headers.getProperty("content-type"), true);
+        }
+    }
+
+    /**
+     * Creates the cache directory, readable only by the current user where the file system supports POSIX permissions.
+     *
+     * @throws IOException If the directory cannot be created.
+     */
+    // O(1) disregarding IO latency
+    private static void createCacheDir() throws IOException {
+        if (CACHE_DIR.isDirectory()) return;
+        try {
+            Files.createDirectories(CACHE_DIR.toPath(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createDirectories(CACHE_DIR.toPath()); // Windows, where the home directory is private anyway
+        }
+    }
+
+    /**
+     * Reads a response stream to the end and closes it, so the connection can be reused.
+     */
+    // O(n) with n being the size of the remaining response
+    private static void drain(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            byte[] buffer = new byte[8192];
+            while (stream.read(buffer) != -1) {
+            }
+        }
+    }
+
+    /**
+     * <p>Deletes the least recently used bodies until the cache fits its size limit. The body that was just written is kept even if it exceeds the limit on its own. The caller holds <code>LOCK</code>.</p>
+     *
+     * @param keep The body that was just written.
+     */
+    // O(n log n) with n being the number of cached bodies
+    private static void evict(File keep) {
+        File[] bodies = CACHE_DIR.listFiles((dir, name) -> name.endsWith(".body"));
+        if (bodies == null) return;
+        long total = 0;
+        for (File file : bodies) total += file.length();
+        Arrays.sort(bodies, Comparator.comparingLong(File::lastModified));
+        for (File file : bodies) {
+            if (total <= maxCacheBytes) break;
+            if (file.equals(keep)) continue;
+            total -= file.length();
+            String name = file.getName();
+            file.delete();
+            new File(CACHE_DIR, name.substring(0, name.length() - 5) + ".meta").delete();
+        }
+    }
+
+    private HttpFetcher() {
+    }
+
+    /**
+     * A fetched response: the cached body, already opened, and its content type. Once opened, the body can be read to the end even if it is evicted meanwhile.
+     */
+    public static final class Response implements Closeable {
+        private final InputStream BODY;
+        private final long LENGTH;
+        private final String CONTENT_TYPE;
+        private final boolean IS_MODIFIED;
+
+        private Response(File body, String contentType, boolean isModified) throws FileNotFoundException {
+            this.BODY = new FileInputStream(body);
+            this.LENGTH = body.length();
+            this.CONTENT_TYPE = contentType;
+            this.IS_MODIFIED = isModified;
+        }
+
+        /**
+         * Returns the stream of the cached body, which is closed by <code>close</code>.
+         *
+         * @return The body stream.
+         */
+        // O(1) simple getter
+        public InputStream getBody() {
+            return BODY;
+        }
+
+        /**
+         * Returns the size of the body on disk.
+         *
+         * @return The size in bytes.
+         */
+        // O(1) simple getter
+        public long getLength() {
+            return LENGTH;
+        }
+
+        /**
+         * Returns the content type sent by the server, such as "text/html; charset=UTF-8".
+         *
+         * @return The content type, or <code>null</code> if the server did not send one.
+         */
+        // O(1) simple getter
+        public String getContentType() {
+            return CONTENT_TYPE;
+        }
+
+        /**
+         * Returns whether a new body was downloaded, rather than the cached body confirmed by a <code>304</code> answer.
+         *
+         * @return True, if the body is new or has changed, or else, false.
+         */
+        // O(1) simple getter
+        public boolean isModified() {
+            return IS_MODIFIED;
+        }
+
+        // O(1) closes the body stream
+        @Override
+        public void close() throws IOException {
+            BODY.close();
+        }
+    }
+}
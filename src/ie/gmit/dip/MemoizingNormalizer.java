@@ -0,0 +1,44 @@
+package ie.gmit.dip;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * <p>A normalizer that remembers the results of another normalizer <b>per thread</b>. Word frequencies follow a steep curve, so most tokens are seen many times and are answered from the cache without normalizing them again. Each thread has its own cache and its own instance of the wrapped normalizer, so no locking is needed.</p>
+ * <p>A cache that reaches its size limit is emptied, which keeps memory bounded on sources with a very large vocabulary.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class MemoizingNormalizer implements TokenNormalizer {
+    private static final int MAX_ENTRIES = 1 << 16;
+    private final ThreadLocal<TokenNormalizer> NORMALIZER;
+    private final ThreadLocal<Map<String, String>> CACHE = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * @param factory Creates one instance of the wrapped normalizer per thread.
+     */
+    public MemoizingNormalizer(Supplier<TokenNormalizer> factory) {
+        this.NORMALIZER = ThreadLocal.withInitial(factory);
+    }
+
+    /**
+     * <p>Returns the cached base form of <code>token</code>, normalizing and caching it first if this thread has not seen it.</p>
+     * <p>This method runs in <b>constant time O(1)</b> on a cache hit.</p>
+     *
+     * @param token A lowercase token.
+     * @return The base form.
+     */
+    // O(1) see JavaDocs
+    public String normalize(String token) {
+        Map<String, String> cache = CACHE.get();
+        String normalized = cache.get(token);
+        if (normalized == null) {
+            normalized = NORMALIZER.get().normalize(token);
+            if (cache.size() >= MAX_ENTRIES) cache.clear();
+            cache.put(token, normalized);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,128 @@
+package ie.gmit.dip;
+
+import java.util.*;
+
+/**
+ * <p>A MinHash signature of a text, built <b>token by token</b> while the text is tokenized, from which the similarity of two texts can be estimated without comparing them.</p>
+ * <p>The text is seen as the set of its shingles, i.e. runs of three consecutive tokens. For each of 128 hash functions, the signature keeps the smallest hash of any shingle; the share of positions at which two signatures agree is an unbiased estimate of the Jaccard similarity of the two shingle sets. Adding a token costs a fixed 128 multiply-shift hashes, and the signature takes 512 bytes however long the text is.</p>
+ * <p>Signatures are compared through an <code>Index</code>, which uses locality-sensitive hashing to find likely near-duplicates without comparing every pair of sources.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class MinHash {
+    private static final int HASHES = 128;
+    private static final int BANDS = 16; // 16 bands of 8 rows: pairs above a similarity of about 0.7 share a band with high probability
+    private static final int ROWS = HASHES / BANDS;
+    private static final int SHINGLE_LENGTH = 3;
+    private static final double THRESHOLD = 0.8; // Estimated Jaccard similarity from which a source counts as a near-duplicate
+    private static final long[] MULTIPLIERS = new long[HASHES];
+    private static final long[] ADDENDS = new long[HASHES];
+    private final int[] MINIMA = new int[HASHES];
+    private final long[] WINDOW = new long[SHINGLE_LENGTH - 1]; // Hashes of the previous tokens
+    private long tokens;
+
+    static {
+        Random random = new Random(0x5EED); // Fixed, so that signatures are comparable across runs
+        for (int i = 0; i < HASHES; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1; // Multiply-shift hashing needs odd multipliers.
+            ADDENDS[i] = random.nextLong();
+        }
+    }
+
+    public MinHash() {
+        Arrays.fill(MINIMA, Integer.MAX_VALUE);
+    }
+
+    // O(1) bit mixing, so that shingles of similar tokens hash far apart
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * <p>Adds the next token of the text: the shingle that ends with it is hashed by every hash function, and each minimum is updated.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the length of the token; the number of hash functions is constant.</p>
+     *
+     * @param token The next token of the text.
+     */
+    // O(n) see JavaDocs
+    public void add(String token) {
+        long hash = mix(token.hashCode());
+        long shingle = hash;
+        for (long previous : WINDOW) shingle = mix(shingle * 31 + previous);
+        System.arraycopy(WINDOW, 0, WINDOW, 1, WINDOW.length - 1);
+        WINDOW[0] = hash;
+        if (++tokens < SHINGLE_LENGTH) return; // The first tokens only start the first shingle.
+        for (int i = 0; i < HASHES; i++) {
+            int value = (int) ((shingle * MULTIPLIERS[i] + ADDENDS[i]) >>> 32);
+            if (value < MINIMA[i]) MINIMA[i] = value;
+        }
+    }
+
+    /**
+     * Returns the signature of the tokens added so far.
+     *
+     * @return A copy of the signature, or <code>null</code> if the text is too short to have a shingle.
+     */
+    // O(1) copies a fixed number of values
+    public int[] signature() {
+        return tokens < SHINGLE_LENGTH ? null : MINIMA.clone();
+    }
+
+    /**
+     * <p>Estimates the Jaccard similarity of two texts from their signatures.</p>
+     *
+     * @param a A signature.
+     * @param b Another signature.
+     * @return The share of hash functions whose minima agree, from 0 to 1.
+     */
+    // O(1) compares a fixed number of values
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) if (a[i] == b[i]) equal++;
+        return (double) equal / HASHES;
+    }
+
+    /**
+     * <p>An index of the signatures of the sources accepted so far. Each signature is cut into bands of rows, and every band is hashed into a bucket; a new signature is compared only with the signatures it shares at least one bucket with, so checking a source takes close to constant time however many sources have been indexed.</p>
+     * <p>The index is thread-safe, so tabulators can check their sources as they finish.</p>
+     */
+    public static final class Index {
+        private final Map<Long, List<Integer>> BUCKETS = new HashMap<>();
+        private final List<int[]> SIGNATURES = new ArrayList<>();
+        private final List<String> NAMES = new ArrayList<>();
+
+        /**
+         * <p>Adds a signature to the index, unless it is a near-duplicate of one that is already indexed.</p>
+         * <p>This method runs in <b>constant time O(1)</b> on average, comparing only with the candidates from the signature's buckets.</p>
+         *
+         * @param signature The signature of a source, or <code>null</code> if none could be made; such sources are always accepted.
+         * @param name      The name of the source, reported when a later source duplicates it.
+         * @return The name of the indexed source that this one duplicates, or <code>null</code> if it was added.
+         */
+        // O(1) see JavaDocs
+        public synchronized String addIfDistinct(int[] signature, String name) {
+            if (signature == null) return null;
+            long[] keys = new long[BANDS];
+            for (int band = 0; band < BANDS; band++) {
+                long key = band;
+                for (int row = band * ROWS; row < (band + 1) * ROWS; row++) key = mix(key * 31 + signature[row]);
+                keys[band] = key;
+                List<Integer> bucket = BUCKETS.get(key);
+                if (bucket == null) continue;
+                for (int candidate : bucket) {
+                    if (similarity(signature, SIGNATURES.get(candidate)) >= THRESHOLD) return NAMES.get(candidate);
+                }
+            }
+            int id = SIGNATURES.size();
+            SIGNATURES.add(signature);
+            NAMES.add(name);
+            for (long key : keys) BUCKETS.computeIfAbsent(key, k -> new ArrayList<>(1)).add(id);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ie.gmit.dip;
+
+/**
+ * An enumeration of the normalization stages that <code>Tabulators</code> can apply to tokens before they are counted.
+ */
+public enum Normalization {
+    NONE("none"),
+    STEM("Porter stemming"),
+    LEMMATIZE("dictionary lemmatization");
+
+    private final String label;
+
+    Normalization(String label) {
+        this.label = label;
+    }
+
+    // O(1) simple getter
+    @Override
+    public String toString() {
+        return this.label;
+    }
+}
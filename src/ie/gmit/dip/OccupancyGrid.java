@@ -0,0 +1,185 @@
+package ie.gmit.dip;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * <p>A grid of the cells of an image that records which cells are free for a word: inside the shape of a mask and not yet covered by another word. Each cell is a small square of pixels, and the grid has about a million cells at most however large the image is.</p>
+ * <p>Cells are stored as a <b>packed bit set</b>, one bit per cell and one row of <code>long</code>s per row of cells, so testing whether a word's rectangle is free takes one bitwise AND per 64 cells of each of its rows. Before that, an <b>integral image</b> of the cells outside the mask rejects any rectangle that leaves the shape in constant time, which is where most random candidates end up with a complex mask.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class OccupancyGrid {
+    private static final int MAX_CELLS = 1 << 20;
+    private final int CELL; // The side of a cell in pixels
+    private final int COLUMNS;
+    private final int ROWS;
+    private final int ROW_LONGS;
+    private final long[] OCCUPIED; // One bit per cell, set if the cell is outside the mask or covered by a word
+    private final int[] OUTSIDE; // Integral image: the number of cells outside the mask above and to the left of each corner
+    private final long FREE_AREA;
+    private final int MIN_COLUMN, MAX_COLUMN, MIN_ROW, MAX_ROW; // The bounds of the cells inside the mask
+
+    /**
+     * <p>Builds the grid of an image from a mask, which is scaled to the size of the image. A pixel of the mask is inside the shape if it is mostly opaque; in a mask without transparent pixels, such as a JPEG silhouette or an RGBA PNG on an opaque background, dark pixels are inside instead.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of cells.</p>
+     *
+     * @param mask   The mask image.
+     * @param width  The image width in pixels.
+     * @param height The image height in pixels.
+     */
+    // O(n) see JavaDocs
+    public OccupancyGrid(BufferedImage mask, int width, int height) {
+        this.CELL = (int) Math.max(1, Math.ceil(Math.sqrt((double) width * height / MAX_CELLS)));
+        this.COLUMNS = (width + CELL - 1) / CELL;
+        this.ROWS = (height + CELL - 1) / CELL;
+        this.ROW_LONGS = (COLUMNS + 63) >>> 6;
+        this.OCCUPIED = new long[ROW_LONGS * ROWS];
+        this.OUTSIDE = new int[(COLUMNS + 1) * (ROWS + 1)];
+
+        BufferedImage scaled = new BufferedImage(COLUMNS, ROWS, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = scaled.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.drawImage(mask, 0, 0, COLUMNS, ROWS, null);
+        g2.dispose();
+        boolean hasAlpha = false; // An alpha channel alone says nothing; an RGBA image may be opaque everywhere.
+        for (int row = 0; row < ROWS && !hasAlpha; row++) {
+            for (int column = 0; column < COLUMNS && !hasAlpha; column++) hasAlpha = scaled.getRGB(column, row) >>> 24 < 255;
+        }
+
+        int minColumn = COLUMNS, maxColumn = -1, minRow = ROWS, maxRow = -1;
+        long inside = 0;
+        for (int row = 0; row < ROWS; row++) {
+            int outsideInRow = 0;
+            for (int column = 0; column < COLUMNS; column++) {
+                int argb = scaled.getRGB(column, row);
+                boolean isInside = hasAlpha ? (argb >>> 24) >= 128 : ((argb >> 16 & 0xFF) * 299 + (argb >> 8 & 0xFF) * 587 + (argb & 0xFF) * 114) / 1000 < 128;
+                if (isInside) {
+                    inside++;
+                    minColumn = Math.min(minColumn, column);
+                    maxColumn = Math.max(maxColumn, column);
+                    minRow = Math.min(minRow, row);
+                    maxRow = Math.max(maxRow, row);
+                } else {
+                    outsideInRow++;
+                    OCCUPIED[row * ROW_LONGS + (column >>> 6)] |= 1L << (column & 63);
+                }
+                OUTSIDE[(row + 1) * (COLUMNS + 1) + column + 1] = OUTSIDE[row * (COLUMNS + 1) + column + 1] + outsideInRow;
+            }
+        }
+        this.MIN_COLUMN = minColumn;
+        this.MAX_COLUMN = maxColumn;
+        this.MIN_ROW = minRow;
+        this.MAX_ROW = maxRow;
+        this.FREE_AREA = inside * CELL * CELL;
+    }
+
+    /**
+     * Returns the area inside the mask, which is the area a layout can fill.
+     *
+     * @return The area in square pixels.
+     */
+    // O(1) simple getter
+    public long getFreeArea() {
+        return FREE_AREA;
+    }
+
+    /**
+     * <p>Looks for a free place for a rectangle by trying random positions inside the bounds of the mask. Each candidate is first checked against the integral image, and only candidates that lie entirely inside the mask are tested against the words placed so far.</p>
+     * <p>This method runs in <b>O(t * h * w / 64)</b> time in the worst case with t being <code>tries</code> and h and w the size of the rectangle in cells, but most candidates are rejected in constant time.</p>
+     *
+     * @param width     The width of the rectangle in pixels.
+     * @param height    The height of the rectangle in pixels.
+     * @param generator The random generator, which makes layouts reproducible in deterministic mode.
+     * @param tries     The maximum number of candidates tried.
+     * @return The left and top pixel of a free place, or <code>null</code> if none was found.
+     */
+    // O(t * h * w / 64) see JavaDocs
+    public int[] find(int width, int height, Random generator, int tries) {
+        int columns = (width + CELL - 1) / CELL;
+        int rows = (height + CELL - 1) / CELL;
+        int columnRange = MAX_COLUMN - MIN_COLUMN - columns + 2;
+        int rowRange = MAX_ROW - MIN_ROW - rows + 2;
+        if (columnRange <= 0 || rowRange <= 0) return null; // Larger than the shape
+        for (int i = 0; i < tries; i++) {
+            int column = MIN_COLUMN + generator.nextInt(columnRange);
+            int row = MIN_ROW + generator.nextInt(rowRange);
+            if (outside(column, row, columns, rows) == 0 && isFree(column, row, columns, rows)) return new int[]{column * CELL, row * CELL};
+        }
+        return null;
+    }
+
+    // O(1) four lookups in the integral image
+    private int outside(int column, int row, int columns, int rows) {
+        int stride = COLUMNS + 1;
+        int right = column + columns;
+        int bottom = row + rows;
+        return OUTSIDE[bottom * stride + right] - OUTSIDE[row * stride + right] - OUTSIDE[bottom * stride + column] + OUTSIDE[row * stride + column];
+    }
+
+    // O(h * w / 64) one AND per 64 cells of each row
+    private boolean isFree(int column, int row, int columns, int rows) {
+        int last = column + columns - 1;
+        int firstLong = column >>> 6;
+        int lastLong = last >>> 6;
+        for (int r = row; r < row + rows; r++) {
+            int offset = r * ROW_LONGS;
+            for (int l = firstLong; l <= lastLong; l++) {
+                long bits = -1L;
+                if (l == firstLong) bits &= -1L << (column & 63);
+                if (l == lastLong) bits &= -1L >>> (63 - (last & 63));
+                if ((OCCUPIED[offset + l] & bits) != 0) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>Checks whether a rectangle at a given place lies entirely inside the mask and is not covered by any word placed so far.</p>
+     * <p>This method runs in <b>O(h * w / 64)</b> time with h and w being the size of the rectangle in cells.</p>
+     *
+     * @param x      The left pixel of the rectangle.
+     * @param y      The top pixel of the rectangle.
+     * @param width  The width of the rectangle in pixels.
+     * @param height The height of the rectangle in pixels.
+     * @return True, if the rectangle is free, or else, false.
+     */
+    // O(h * w / 64) see JavaDocs
+    public boolean fits(int x, int y, int width, int height) {
+        if (x < 0 || y < 0) return false;
+        int column = x / CELL;
+        int row = y / CELL;
+        int last = (x + width - 1) / CELL;
+        int lastRow = (y + height - 1) / CELL;
+        if (last >= COLUMNS || lastRow >= ROWS) return false;
+        return outside(column, row, last - column + 1, lastRow - row + 1) == 0 && isFree(column, row, last - column + 1, lastRow - row + 1);
+    }
+
+    /**
+     * <p>Marks the cells covered by a placed word as occupied.</p>
+     * <p>This method runs in <b>O(h * w / 64)</b> time with h and w being the size of the rectangle in cells.</p>
+     *
+     * @param x      The left pixel of the rectangle.
+     * @param y      The top pixel of the rectangle.
+     * @param width  The width of the rectangle in pixels.
+     * @param height The height of the rectangle in pixels.
+     */
+    // O(h * w / 64) see JavaDocs
+    public void occupy(int x, int y, int width, int height) {
+        int column = x / CELL;
+        int last = Math.min(COLUMNS - 1, (x + width - 1) / CELL);
+        int lastRow = Math.min(ROWS - 1, (y + height - 1) / CELL);
+        for (int r = y / CELL; r <= lastRow; r++) {
+            int offset = r * ROW_LONGS;
+            for (int l = column >>> 6; l <= last >>> 6; l++) {
+                long bits = -1L;
+                if (l == column >>> 6) bits &= -1L << (column & 63);
+                if (l == last >>> 6) bits &= -1L >>> (63 - (last & 63));
+                OCCUPIED[offset + l] |= bits;
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package ie.gmit.dip;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * <p>A frequency table that keeps its keys and counts <b>outside of the JVM heap</b> in direct <code>ByteBuffer</code>s, so that very large vocabularies do not add to garbage collection pauses.</p>
+ * <p>The table is split into a fixed number of independently locked segments (lock striping). Each segment is an open-addressing hash table whose slots hold a key hash, an offset into a key arena and a count; the key arena stores the UTF-8 bytes of each word. Segments grow on their own under their own lock, so threads that count different words rarely block each other.</p>
+ * <p>The class implements <code>Map&lt;String, Integer&gt;</code>, so it can be passed to any <code>FrequencyTabulator</code> in place of a <code>ConcurrentHashMap</code>. <code>merge</code> and <code>remove</code> are atomic; views such as <code>entrySet</code> are read-only snapshots copied onto the heap. To read the counts without copying the whole table onto the heap, use <code>top</code> and <code>export</code>, which walk the buffers one segment at a time.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class OffHeapFrequencyTable extends AbstractMap<String, Integer> {
+    private static final int SEGMENTS = 64;
+    private final Segment[] SEGMENT_TABLE = new Segment[SEGMENTS];
+
+    public OffHeapFrequencyTable() {
+        for (int i = 0; i < SEGMENTS; i++) SEGMENT_TABLE[i] = new Segment();
+    }
+
+    // O(1) bit mixing so that similar Strings spread over segments and slots
+    private static int hash(String word) {
+        int h = word.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h;
+    }
+
+    // O(1) the top bits pick the segment, the low bits are used for the slots
+    private Segment segmentFor(int hash) {
+        return SEGMENT_TABLE[(hash >>> 26) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * <p>Combines <code>value</code> with the count stored for <code>key</code> by <code>remappingFunction</code>, or stores <code>value</code> if the key is new. If the function returns <code>null</code>, the key is removed. The function is called under the lock of the key's segment, so the update is atomic.</p>
+     * <p>This method runs in <b>amortised constant time O(1)</b>.</p>
+     *
+     * @param key               A word.
+     * @param value             The number of occurrences to add, usually.
+     * @param remappingFunction The function that combines the stored count and <code>value</code>, usually <code>Integer::sum</code>.
+     * @return The new count, or <code>null</code> if the key was removed.
+     */
+    // O(1) see JavaDocs
+    @Override
+    public Integer merge(String key, Integer value, BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
+        int hash = hash(key);
+        return segmentFor(hash).merge(key, hash, value, remappingFunction);
+    }
+
+    // O(1) overwrites the count rather than adding to it
+    @Override
+    public Integer put(String key, Integer value) {
+        int hash = hash(key);
+        return segmentFor(hash).set(key, hash, value);
+    }
+
+    // O(1) plain lookup
+    @Override
+    public Integer get(Object key) {
+        if (!(key instanceof String)) return null;
+        int hash = hash((String) key);
+        return segmentFor(hash).get((String) key, hash);
+    }
+
+    // O(1) plain lookup
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    // O(1) on average, the slots after the removed one are shifted back so that lookups still find them
+    @Override
+    public Integer remove(Object key) {
+        if (!(key instanceof String)) return null;
+        int hash = hash((String) key);
+        return segmentFor(hash).remove((String) key, hash);
+    }
+
+    // O(s) with s being the number of segments
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : SEGMENT_TABLE) size += segment.size();
+        return size;
+    }
+
+    // O(s) the direct buffers of every segment are replaced, the old ones are released by their cleaners
+    @Override
+    public void clear() {
+        for (Segment segment : SEGMENT_TABLE) segment.clear();
+    }
+
+    /**
+     * <p>Returns a read-only snapshot of the table's content as heap-resident entries. Later changes to the table are not reflected in the snapshot, and the snapshot cannot be used to change the table.</p>
+     * <p>This method runs in <b>linear time O(n)</b>.</p>
+     *
+     * @return A <code>Set</code> of entries that contain a word and its count.
+     */
+    // O(n) see JavaDocs
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+        List<Entry<String, Integer>> entries = new ArrayList<>();
+        for (Segment segment : SEGMENT_TABLE) segment.copyInto(entries);
+        return Collections.unmodifiableSet(new HashSet<>(entries));
+    }
+
+    /**
+     * <p>Passes every word and its count to <code>action</code>. Only one segment at a time is copied onto the heap, about a sixty-fourth of the vocabulary, rather than the whole table as <code>entrySet</code> would.</p>
+     * <p>This method runs in <b>linear time O(n)</b>.</p>
+     *
+     * @param action The action to be performed for each word and its count.
+     */
+    // O(n) see JavaDocs
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Integer> action) {
+        for (Segment segment : SEGMENT_TABLE) {
+            List<Entry<String, Integer>> entries = new ArrayList<>();
+            segment.copyInto(entries);
+            for (Entry<String, Integer> entry : entries) action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * <p>Returns the <code>limit</code> most frequent words with their counts, sorted by count in descending order. The segments are walked one at a time and a min-heap of <code>limit</code> entries keeps the best words seen so far; a word is only decoded onto the heap if its count gets it into the heap, so the heap use does not grow with the vocabulary.</p>
+     * <p>This method runs in <b>O(n log k)</b> time with n being the number of words and k being <code>limit</code>.</p>
+     *
+     * @param limit The maximum number of words returned.
+     * @return The top words and their counts, or <code>null</code> if no word was counted.
+     */
+    // O(n log k) see JavaDocs
+    public List<Entry<String, Integer>> top(int limit) {
+        PriorityQueue<Entry<String, Integer>> heap = new PriorityQueue<>(limit + 1, Entry.comparingByValue()); // Min-heap of the best words so far
+        for (Segment segment : SEGMENT_TABLE) segment.offerTo(heap, limit);
+        if (heap.isEmpty()) return null;
+        LinkedList<Entry<String, Integer>> list = new LinkedList<>();
+        while (!heap.isEmpty()) list.addFirst(heap.poll()); // The heap yields the lowest count first.
+        return list;
+    }
+
+    /**
+     * <p>Writes the complete table to a snapshot file. Each segment is copied onto the heap and written as a sorted run on its own, and the runs are then combined by the streaming merge of <code>FrequencySnapshot</code>, so at most one segment, about a sixty-fourth of the vocabulary, is on the heap at any time.</p>
+     * <p>This method runs in <b>O(n log n)</b> time, as every run is sorted by word.</p>
+     *
+     * @param file The snapshot file to be written.
+     * @throws IOException If a run or the file cannot be written.
+     */
+    // O(n log n) see JavaDocs
+    public void export(File file) throws IOException {
+        File directory = Files.createTempDirectory("wcloud-export").toFile();
+        List<File> runs = new ArrayList<>();
+        try {
+            for (int i = 0; i < SEGMENTS; i++) {
+                List<Entry<String, Integer>> entries = new ArrayList<>();
+                SEGMENT_TABLE[i].copyInto(entries);
+                if (entries.isEmpty()) continue;
+                File run = new File(directory, "segment-" + i + ".wcfs");
+                runs.add(run);
+                FrequencySnapshot.export(entries, run);
+            }
+            FrequencySnapshot.merge(runs, file);
+        } finally {
+            for (File run : runs) if (!run.delete()) run.deleteOnExit(); // A run that is still mapped on some platforms is deleted on exit instead.
+            if (!directory.delete()) directory.deleteOnExit();
+        }
+    }
+
+    /**
+     * An open-addressing hash table in direct memory. Every slot has the layout <code>[int hash][int key offset + 1][int count]</code>, an offset of 0 marks an empty slot. Every key in the arena has the layout <code>[int length][UTF-8 bytes]</code>, so keys of any length are stored whole. The arena space of a removed key is not reused until the segment is cleared.
+     */
+    private static final class Segment {
+        private static final int SLOT_BYTES = 12;
+        private static final int INITIAL_SLOTS = 256;
+        private static final int INITIAL_ARENA = 4096;
+
+        private ByteBuffer slots;
+        private ByteBuffer arena;
+        private int capacity;
+        private int size;
+
+        private Segment() {
+            clear();
+        }
+
+        private synchronized void clear() {
+            capacity = INITIAL_SLOTS;
+            slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+            arena = ByteBuffer.allocateDirect(INITIAL_ARENA);
+            size = 0;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        // O(k) with k being the length of the key, compares the stored bytes without decoding them
+        private boolean keyEquals(int offset, byte[] key) {
+            int length = arena.getInt(offset);
+            if (length != key.length) return false;
+            for (int i = 0; i < length; i++) {
+                if (arena.get(offset + 4 + i) != key[i]) return false;
+            }
+            return true;
+        }
+
+        // O(k) with k being the length of the word
+        private static byte[] encode(String word) {
+            return word.getBytes(StandardCharsets.UTF_8);
+        }
+
+        // O(k) decodes a key from the arena onto the heap
+        private String keyAt(int offset) {
+            byte[] bytes = new byte[arena.getInt(offset)];
+            for (int i = 0; i < bytes.length; i++) bytes[i] = arena.get(offset + 4 + i);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the index of the slot that holds <code>key</code>, or the index of the empty slot where it would be inserted.
+         */
+        // O(1) on average thanks to the load factor of at most 0.5
+        private int find(byte[] key, int hash) {
+            int mask = capacity - 1;
+            int index = hash & mask;
+            while (true) {
+                int base = index * SLOT_BYTES;
+                int offset = slots.getInt(base + 4);
+                if (offset == 0) return index;
+                if (slots.getInt(base) == hash && keyEquals(offset - 1, key)) return index;
+                index = (index + 1) & mask;
+            }
+        }
+
+        private synchronized Integer get(String word, int hash) {
+            int base = find(encode(word), hash) * SLOT_BYTES;
+            return slots.getInt(base + 4) == 0 ? null : slots.getInt(base + 8);
+        }
+
+        private synchronized Integer merge(String word, int hash, int value, BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
+            byte[] key = encode(word);
+            int index = find(key, hash);
+            int base = index * SLOT_BYTES;
+            if (slots.getInt(base + 4) != 0) {
+                Integer count = remappingFunction.apply(slots.getInt(base + 8), value);
+                if (count == null) delete(index);
+                else slots.putInt(base + 8, count);
+                return count;
+            }
+            insert(base, key, hash, value);
+            return value;
+        }
+
+        private synchronized Integer remove(String word, int hash) {
+            int index = find(encode(word), hash);
+            int base = index * SLOT_BYTES;
+            if (slots.getInt(base + 4) == 0) return null;
+            int previous = slots.getInt(base + 8);
+            delete(index);
+            return previous;
+        }
+
+        /**
+         * Empties a slot and shifts back the slots that follow it in its probe run, unless they are already as close to their home slot as they can be, so that no lookup stops early at the gap.
+         */
+        // O(1) on average thanks to the load factor of at most 0.5
+        private void delete(int index) {
+            int mask = capacity - 1;
+            int gap = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                int base = next * SLOT_BYTES;
+                if (slots.getInt(base + 4) == 0) break;
+                int home = slots.getInt(base) & mask;
+                boolean isStuck = gap <= next ? gap < home && home <= next : gap < home || home <= next; // Its home lies between the gap and itself, so it must stay.
+                if (isStuck) continue;
+                slots.putInt(gap * SLOT_BYTES, slots.getInt(base));
+                slots.putInt(gap * SLOT_BYTES + 4, slots.getInt(base + 4));
+                slots.putInt(gap * SLOT_BYTES + 8, slots.getInt(base + 8));
+                gap = next;
+            }
+            slots.putInt(gap * SLOT_BYTES + 4, 0);
+            size--;
+        }
+
+        private synchronized Integer set(String word, int hash, int value) {
+            byte[] key = encode(word);
+            int base = find(key, hash) * SLOT_BYTES;
+            if (slots.getInt(base + 4) != 0) {
+                int previous = slots.getInt(base + 8);
+                slots.putInt(base + 8, value);
+                return previous;
+            }
+            insert(base, key, hash, value);
+            return null;
+        }
+
+        // O(1) amortised; the arena and the slots double in size when they run full
+        private void insert(int base, byte[] key, int hash, int value) {
+            int length = key.length;
+            if (arena.remaining() < length + 4) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(arena.capacity() * 2, arena.position() + length + 4));
+                arena.flip();
+                larger.put(arena);
+                arena = larger;
+            }
+            int offset = arena.position();
+            arena.putInt(length);
+            arena.put(key, 0, length);
+            slots.putInt(base, hash);
+            slots.putInt(base + 4, offset + 1);
+            slots.putInt(base + 8, value);
+            size++;
+            if (size * 2 > capacity) grow();
+        }
+
+        // O(n) rehashes every occupied slot into a table of twice the size
+        private void grow() {
+            ByteBuffer old = slots;
+            int oldCapacity = capacity;
+            capacity *= 2;
+            slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldCapacity; i++) {
+                int base = i * SLOT_BYTES;
+                int offset = old.getInt(base + 4);
+                if (offset == 0) continue;
+                int hash = old.getInt(base);
+                int index = hash & mask;
+                while (slots.getInt(index * SLOT_BYTES + 4) != 0) index = (index + 1) & mask;
+                slots.putInt(index * SLOT_BYTES, hash);
+                slots.putInt(index * SLOT_BYTES + 4, offset);
+                slots.putInt(index * SLOT_BYTES + 8, old.getInt(base + 8));
+            }
+        }
+
+        private synchronized void copyInto(Collection<Entry<String, Integer>> entries) {
+            for (int i = 0; i < capacity; i++) {
+                int base = i * SLOT_BYTES;
+                int offset = slots.getInt(base + 4);
+                if (offset != 0)
+                    entries.add(new AbstractMap.SimpleImmutableEntry<>(keyAt(offset - 1), slots.getInt(base + 8)));
+            }
+        }
+
+        // O(n log k) only words whose count beats the smallest in the heap are decoded
+        private synchronized void offerTo(PriorityQueue<Entry<String, Integer>> heap, int limit) {
+            for (int i = 0; i < capacity; i++) {
+                int base = i * SLOT_BYTES;
+                int offset = slots.getInt(base + 4);
+                if (offset == 0) continue;
+                int count = slots.getInt(base + 8);
+                if (heap.size() < limit) {
+                    heap.add(new AbstractMap.SimpleImmutableEntry<>(keyAt(offset - 1), count));
+                } else if (count > heap.peek().getValue()) {
+                    heap.poll();
+                    heap.add(new AbstractMap.SimpleImmutableEntry<>(keyAt(offset - 1), count));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ie.gmit.dip;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>A counter for phrases of two or three consecutive tokens (bigrams or trigrams) within one source. A sliding window moves over the source's tokens; every full window is counted as one phrase.</p>
+ * <p>Phrases are not stored as concatenated <code>String</code>s. Each distinct token is given a 21-bit ID, and a phrase is packed into a single <code>long</code> of up to three IDs, which is counted in a primitive open-addressing table. When the table exceeds its budget, the rarest phrases are pruned and the pruning threshold is raised, so memory stays bounded however long the source is. Only the phrases that survive are turned into <code>String</code>s when the counts are flushed.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class PhraseCounter {
+    private static final int ID_BITS = 21;
+    private static final int MAX_IDS = (1 << ID_BITS) - 1;
+    private static final int MAX_PHRASES = 1 << 18;
+
+    private final int LENGTH;
+    private final Map<String, Integer> IDS = new HashMap<>();
+    private String[] words = new String[1024];
+    private final int[] WINDOW = new int[3];
+    private int filled;
+
+    private long[] keys = new long[1024];
+    private int[] counts = new int[1024];
+    private int size;
+    private int pruneThreshold = 1;
+
+    /**
+     * @param length The number of tokens per phrase, 2 or 3.
+     */
+    public PhraseCounter(int length) {
+        this.LENGTH = length;
+    }
+
+    /**
+     * Returns the ID of a token, assigning the next free ID if the token is new.
+     *
+     * @param token A single token.
+     * @return The token's ID, starting at 1, or 0 if the ID space is exhausted.
+     */
+    // O(1) hash map lookup
+    private int id(String token) {
+        Integer id = IDS.get(token);
+        if (id != null) return id;
+        if (IDS.size() >= MAX_IDS) return 0;
+        int next = IDS.size() + 1;
+        IDS.put(token, next);
+        if (next >= words.length) words = Arrays.copyOf(words, words.length * 2);
+        words[next] = token;
+        return next;
+    }
+
+    /**
+     * <p>Moves the window forward by one token and counts the phrase that ends with it, once the window is full.</p>
+     * <p>This method runs in <b>amortised constant time O(1)</b>.</p>
+     *
+     * @param token A token that passed the tokenizer's filters.
+     */
+    // O(1) see JavaDocs
+    public void accept(String token) {
+        int id = id(token);
+        if (id == 0) { // Too many distinct tokens to give this one an ID; it cannot be part of a phrase.
+            breakWindow();
+            return;
+        }
+        if (filled == LENGTH) {
+            System.arraycopy(WINDOW, 1, WINDOW, 0, LENGTH - 1);
+            filled--;
+        }
+        WINDOW[filled++] = id;
+        if (filled == LENGTH) {
+            long key = 0;
+            for (int i = 0; i < LENGTH; i++) key = (key << ID_BITS) | WINDOW[i];
+            increment(key);
+        }
+    }
+
+    /**
+     * Empties the window, so that no phrase spans a discarded token such as a stop word.
+     */
+    // O(1) no loops here
+    public void breakWindow() {
+        filled = 0;
+    }
+
+    // O(1) amortised, linear probing in a table that is at most half full
+    private void increment(long key) {
+        int mask = keys.length - 1;
+        int index = (int) (key ^ (key >>> 29)) * 0x9E3779B9 & mask;
+        while (keys[index] != 0 && keys[index] != key) index = (index + 1) & mask;
+        if (keys[index] == key) {
+            counts[index]++;
+            return;
+        }
+        keys[index] = key;
+        counts[index] = 1;
+        size++;
+        if (size > MAX_PHRASES) prune();
+        else if (size * 2 > keys.length) rehash(keys.length * 2);
+    }
+
+    // O(n) reinserts every entry that is kept
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int index = (int) (oldKeys[i] ^ (oldKeys[i] >>> 29)) * 0x9E3779B9 & mask;
+            while (keys[index] != 0) index = (index + 1) & mask;
+            keys[index] = oldKeys[i];
+            counts[index] = oldCounts[i];
+        }
+    }
+
+    /**
+     * Drops every phrase counted no more than the current threshold and raises the threshold, until the table is back under half its budget.
+     */
+    // O(n) per pruning pass
+    private void prune() {
+        while (size > MAX_PHRASES / 2) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && counts[i] <= pruneThreshold) {
+                    keys[i] = 0;
+                    size--;
+                }
+            }
+            pruneThreshold++;
+        }
+        rehash(keys.length);
+    }
+
+    /**
+     * <p>Adds every counted phrase to <code>frequencyTable</code>, with its tokens separated by spaces. If the table was ever pruned, phrases counted less often than the pruning threshold are dropped, as their counts may have restarted after an earlier occurrence was pruned; otherwise every phrase is kept, so that a phrase seen once in each of several sources still adds up.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of distinct phrases.</p>
+     *
+     * @param frequencyTable The map that holds the frequency table.
+     */
+    // O(n) see JavaDocs
+    public void flushInto(Map<String, Integer> frequencyTable) {
+        long mask = (1L << ID_BITS) - 1;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == 0 || counts[i] < pruneThreshold) continue; // The threshold is 1 until the first pruning, which keeps every phrase.
+            sb.setLength(0);
+            for (int j = LENGTH - 1; j >= 0; j--) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(words[(int) ((keys[i] >>> (j * ID_BITS)) & mask)]);
+            }
+            frequencyTable.merge(sb.toString(), counts[i], Integer::sum);
+        }
+    }
+}
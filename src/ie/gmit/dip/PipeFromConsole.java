@@ -0,0 +1,33 @@
+package ie.gmit.dip;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+
+/**
+ * <p>A class that takes in user input as a <code>String</code> on construction, safely interprets it as the path of a named pipe and verifies that it exists. Named pipes are not regular files, so any existing path that is not a directory is accepted.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class PipeFromConsole extends FileFromConsole {
+    /**
+     * <p>Verifies that the path exists and is not a directory.</p>
+     *
+     * @param file The <code>File</code> in question.
+     * @return True, if the path can be opened for reading, otherwise false.
+     */
+    // O(1) see isReadablePath
+    public boolean validate(File file) {
+        return isReadablePath(file);
+    }
+
+    // O(1) no loops here, shared with Runner's batch mode
+    static boolean isReadablePath(File file) {
+        try {
+            return file != null && Files.exists(file.toPath()) && !Files.isDirectory(file.toPath());
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+}
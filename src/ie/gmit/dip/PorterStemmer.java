@@ -0,0 +1,284 @@
+package ie.gmit.dip;
+
+import java.util.Arrays;
+
+/**
+ * <p>An implementation of the Porter stemming algorithm (M.F. Porter, "An algorithm for suffix stripping", 1980), which removes common English suffixes so that "run", "runs" and "running" share the stem "run".</p>
+ * <p>The stemmer works in place on a reusable <code>char</code> buffer and compares suffixes character by character, so the only allocation per call is the resulting <code>String</code>, and only if the token actually changes. Because of the shared buffer, an instance must not be used by several threads at once; <code>MemoizingNormalizer</code> gives each thread its own.</p>
+ * <p>Source of the algorithm: <a href="https://tartarus.org/martin/PorterStemmer/" target="_new">https://tartarus.org/martin/PorterStemmer/</a></p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class PorterStemmer implements TokenNormalizer {
+    private char[] b = new char[64];
+    private int k; // The offset of the last character of the current stem.
+    private int j; // A general offset into the buffer, set by ends.
+
+    /**
+     * <p>Returns the Porter stem of <code>token</code>. Tokens that contain anything but the letters a to z, as well as tokens of up to two letters, are returned unchanged.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the length of the token.</p>
+     *
+     * @param token A lowercase token.
+     * @return The stem, or <code>token</code> itself if nothing was removed.
+     */
+    // O(n) see JavaDocs
+    public String normalize(String token) {
+        int length = token.length();
+        if (length <= 2) return token;
+        if (length + 1 > b.length) b = Arrays.copyOf(b, length + 1); // Step 1 may add one character.
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c < 'a' || c > 'z') return token;
+            b[i] = c;
+        }
+        k = length - 1;
+        step1();
+        step2();
+        step3();
+        step4();
+        step5();
+        step6();
+        if (k + 1 == length) {
+            boolean isUnchanged = true;
+            for (int i = 0; i < length && isUnchanged; i++) isUnchanged = b[i] == token.charAt(i);
+            if (isUnchanged) return token;
+        }
+        return new String(b, 0, k + 1);
+    }
+
+    // O(1) true if b[i] is a consonant; "y" is a consonant unless it follows one
+    private boolean cons(int i) {
+        switch (b[i]) {
+            case 'a':
+            case 'e':
+            case 'i':
+            case 'o':
+            case 'u':
+                return false;
+            case 'y':
+                return i == 0 || !cons(i - 1);
+            default:
+                return true;
+        }
+    }
+
+    // O(n) counts the vowel-consonant sequences between 0 and j, the "measure" of the stem
+    private int m() {
+        int n = 0;
+        int i = 0;
+        while (true) {
+            if (i > j) return n;
+            if (!cons(i)) break;
+            i++;
+        }
+        i++;
+        while (true) {
+            while (true) {
+                if (i > j) return n;
+                if (cons(i)) break;
+                i++;
+            }
+            i++;
+            n++;
+            while (true) {
+                if (i > j) return n;
+                if (!cons(i)) break;
+                i++;
+            }
+            i++;
+        }
+    }
+
+    // O(n) true if 0..j contains a vowel
+    private boolean vowelInStem() {
+        for (int i = 0; i <= j; i++) if (!cons(i)) return true;
+        return false;
+    }
+
+    // O(1) true if j, j-1 contain a double consonant
+    private boolean doubleC(int j) {
+        if (j < 1) return false;
+        if (b[j] != b[j - 1]) return false;
+        return cons(j);
+    }
+
+    // O(1) true if i-2, i-1, i is consonant-vowel-consonant and the last consonant is not w, x or y
+    private boolean cvc(int i) {
+        if (i < 2 || !cons(i) || cons(i - 1) || !cons(i - 2)) return false;
+        char ch = b[i];
+        return ch != 'w' && ch != 'x' && ch != 'y';
+    }
+
+    // O(n) true if 0..k ends with s, in which case j is set to the end of the remaining stem
+    private boolean ends(String s) {
+        int l = s.length();
+        int o = k - l + 1;
+        if (o < 0) return false;
+        for (int i = 0; i < l; i++) if (b[o + i] != s.charAt(i)) return false;
+        j = k - l;
+        return true;
+    }
+
+    // O(n) replaces j+1..k with s
+    private void setTo(String s) {
+        int l = s.length();
+        int o = j + 1;
+        for (int i = 0; i < l; i++) b[o + i] = s.charAt(i);
+        k = j + l;
+    }
+
+    // O(n) replaces the suffix if the stem has a measure above 0
+    private void r(String s) {
+        if (m() > 0) setTo(s);
+    }
+
+    // Removes plurals and -ed or -ing, e.g. caresses -> caress, ponies -> poni, meeting -> meet
+    private void step1() {
+        if (b[k] == 's') {
+            if (ends("sses")) k -= 2;
+            else if (ends("ies")) setTo("i");
+            else if (b[k - 1] != 's') k--;
+        }
+        if (ends("eed")) {
+            if (m() > 0) k--;
+        } else if ((ends("ed") || ends("ing")) && vowelInStem()) {
+            k = j;
+            if (ends("at")) setTo("ate");
+            else if (ends("bl")) setTo("ble");
+            else if (ends("iz")) setTo("ize");
+            else if (doubleC(k)) {
+                k--;
+                char ch = b[k];
+                if (ch == 'l' || ch == 's' || ch == 'z') k++;
+            } else if (m() == 1 && cvc(k)) setTo("e");
+        }
+    }
+
+    // Turns a terminal y into i when there is another vowel in the stem
+    private void step2() {
+        if (ends("y") && vowelInStem()) b[k] = 'i';
+    }
+
+    // Maps double suffixes to single ones, e.g. -ization -> -ize
+    private void step3() {
+        if (k == 0) return;
+        switch (b[k - 1]) {
+            case 'a':
+                if (ends("ational")) r("ate");
+                else if (ends("tional")) r("tion");
+                break;
+            case 'c':
+                if (ends("enci")) r("ence");
+                else if (ends("anci")) r("ance");
+                break;
+            case 'e':
+                if (ends("izer")) r("ize");
+                break;
+            case 'l':
+                if (ends("bli")) r("ble");
+                else if (ends("alli")) r("al");
+                else if (ends("entli")) r("ent");
+                else if (ends("eli")) r("e");
+                else if (ends("ousli")) r("ous");
+                break;
+            case 'o':
+                if (ends("ization")) r("ize");
+                else if (ends("ation")) r("ate");
+                else if (ends("ator")) r("ate");
+                break;
+            case 's':
+                if (ends("alism")) r("al");
+                else if (ends("iveness")) r("ive");
+                else if (ends("fulness")) r("ful");
+                else if (ends("ousness")) r("ous");
+                break;
+            case 't':
+                if (ends("aliti")) r("al");
+                else if (ends("iviti")) r("ive");
+                else if (ends("biliti")) r("ble");
+                break;
+            case 'g':
+                if (ends("logi")) r("log");
+                break;
+        }
+    }
+
+    // Handles -ic-, -full, -ness etc.
+    private void step4() {
+        switch (b[k]) {
+            case 'e':
+                if (ends("icate")) r("ic");
+                else if (ends("ative")) r("");
+                else if (ends("alize")) r("al");
+                break;
+            case 'i':
+                if (ends("iciti")) r("ic");
+                break;
+            case 'l':
+                if (ends("ical")) r("ic");
+                else if (ends("ful")) r("");
+                break;
+            case 's':
+                if (ends("ness")) r("");
+                break;
+        }
+    }
+
+    // Takes off -ant, -ence etc. in context <c>vcvc<v>
+    private void step5() {
+        if (k == 0) return;
+        boolean found;
+        switch (b[k - 1]) {
+            case 'a':
+                found = ends("al");
+                break;
+            case 'c':
+                found = ends("ance") || ends("ence");
+                break;
+            case 'e':
+                found = ends("er");
+                break;
+            case 'i':
+                found = ends("ic");
+                break;
+            case 'l':
+                found = ends("able") || ends("ible");
+                break;
+            case 'n':
+                found = ends("ant") || ends("ement") || ends("ment") || ends("ent");
+                break;
+            case 'o':
+                found = (ends("ion") && j >= 0 && (b[j] == 's' || b[j] == 't')) || ends("ou");
+                break;
+            case 's':
+                found = ends("ism");
+                break;
+            case 't':
+                found = ends("ate") || ends("iti");
+                break;
+            case 'u':
+                found = ends("ous");
+                break;
+            case 'v':
+                found = ends("ive");
+                break;
+            case 'z':
+                found = ends("ize");
+                break;
+            default:
+                found = false;
+        }
+        if (found && m() > 1) k = j;
+    }
+
+    // Removes a final -e and turns -ll into -l if the measure is above 1
+    private void step6() {
+        j = k;
+        if (b[k] == 'e') {
+            int a = m();
+            if (a > 1 || a == 1 && !cvc(k - 1)) k--;
+        }
+        if (b[k] == 'l' && doubleC(k) && m() > 1) k--;
+    }
+}
@@ -0,0 +1,55 @@
+package ie.gmit.dip;
+
+/**
+ * <p>An output variant of a word cloud: the size of the image and the format it is encoded in.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class RenderVariant {
+    private final int WIDTH;
+    private final int HEIGHT;
+    private final String FORMAT;
+
+    /**
+     * @param width  The image width.
+     * @param height The image height.
+     * @param format An <code>ImageIO</code> format name such as "png", "jpg" or "bmp".
+     */
+    public RenderVariant(int width, int height, String format) {
+        this.WIDTH = width;
+        this.HEIGHT = height;
+        this.FORMAT = format;
+    }
+
+    // O(1) simple getter
+    public int getWidth() {
+        return WIDTH;
+    }
+
+    // O(1) simple getter
+    public int getHeight() {
+        return HEIGHT;
+    }
+
+    // O(1) simple getter
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    /**
+     * Returns whether the format can store transparency. Formats that cannot are rendered on a white background.
+     *
+     * @return True for PNG, or else, false.
+     */
+    // O(1) no loops here
+    public boolean hasAlpha() {
+        return FORMAT.equals("png");
+    }
+
+    // O(1) no loops here
+    @Override
+    public String toString() {
+        return WIDTH + "x" + HEIGHT + " " + FORMAT;
+    }
+}
@@ -1,7 +1,15 @@
 package ie.gmit.dip;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -12,7 +20,12 @@ import java.util.Scanner;
  */
 public final class Runner {
     private static boolean isQuitting = false;
-    private static final List<String> LOG = new ArrayList<>();
+    private static boolean isInteractive = false;
+    private static boolean hasProgressLine = false;
+    private static boolean isProgressShown = true;
+    private static volatile boolean isLogStreamed = false;
+    private static final long STARTED_NANOS = System.nanoTime(); // The class is initialised right before main runs.
+    private static final List<String> LOG = Collections.synchronizedList(new ArrayList<>()); // Tabulator threads and worker coordinators log concurrently.
 
     /**
      * <p>Prints a numbered list of <code>FrequencyTabulator</code>s currently held by the <code>Tabulators</code> class, unless there are none.</p>
@@ -28,14 +41,18 @@ public final class Runner {
 
     /**
      * <p>Prints any events logged since the last time this method was called and clears the log, unless the log is already empty.</p>
+     *
+     * @param out The stream to print to; batch mode prints to standard error, so that standard output stays free for pipelines.
      * <p>This method runs in linear time O(n).</p>
      */
-    private static void printLog() {
-        if (!LOG.isEmpty()) {
-            for (String event : LOG) {
-                System.out.println(event + "\n");
+    private static void printLog(PrintStream out) {
+        synchronized (LOG) {
+            if (!LOG.isEmpty()) {
+                for (String event : LOG) {
+                    out.println(event + "\n");
+                }
+                LOG.clear();
             }
-            LOG.clear();
         }
     }
 
@@ -63,6 +80,22 @@ public final class Runner {
         return input;
     }
 
+    /**
+     * Parses a number given as a batch argument that must lie within the same range as in the menu.
+     *
+     * @param value The argument.
+     * @param min   The smallest valid number.
+     * @param max   The largest valid number.
+     * @return The number.
+     * @throws IllegalArgumentException If the argument is not a number from <code>min</code> to <code>max</code>.
+     */
+    // O(n) with n being the length of the argument
+    private static int parseRangedInt(String value, int min, int max) {
+        int number = Integer.parseInt(value);
+        if (number < min || number > max) throw new IllegalArgumentException(value);
+        return number;
+    }
+
     /**
      * <p>Displays <b>hard-coded menu options</b> and prompts the user to choose one option by calling <code>getRangedInt</code>.</p>
      * <p>In terms of time complexity, this method by itself runs in constant time O(1), however, it is dependent on user input and, depending on the user's input, calls other methods with various time complexities. Please see their respective comments for details.</p>
@@ -73,7 +106,7 @@ public final class Runner {
                 WordCloudRenderer.getMaxWords(),
                 WordCloudRenderer.getImageSize()[0],
                 WordCloudRenderer.getImageSize()[1]);
-        switch (getRangedInt(1, 11, null)) {
+        switch (getRangedInt(1, 12, null)) {
             case 1: // Add file
                 System.out.println(Strings.IO_INPUT_FILEPATH.get());
                 Tabulators.add(new FileFromConsole().result());
@@ -111,50 +144,386 @@ public final class Runner {
             case 10: // Render word cloud
                 WordCloudRenderer.process(Tabulators.execute());
                 break;
-            case 11: // Quit
+            case 11: // Advanced options
+                navigateAdvancedMenu();
+                break;
+            case 12: // Quit
                 isQuitting = true;
         }
     }
 
     /**
-     * <p>Clears the console (to keep the menu aligned with the top of the screen/window).</p>
-     * <p>Source: <a href="https://www.delftstack.com/howto/java/java-clear-console/" target="_new">https://www.delftstack.com/howto/java/java-clear-console/</a></p>
+     * <p>Displays <b>hard-coded advanced options</b> for larger jobs and prompts the user to choose one option by calling <code>getRangedInt</code>. The first option returns to the main menu.</p>
+     * <p>In terms of time complexity, this method by itself runs in constant time O(1), however, it is dependent on user input and calls other methods with various time complexities. Please see their respective comments for details.</p>
      */
-    // No guarantees on time complexity, but it should be around O(1).
+    private static void navigateAdvancedMenu() {
+        System.out.printf(Strings.MENU_ADVANCED.get(),
+                Tabulators.isOffHeap() ? "on" : "off",
+                DistributedTabulation.getWorkers(),
+                WordCloudRenderer.getVariants().isEmpty() ? "none" : WordCloudRenderer.getVariants(),
+                WordCloudRenderer.isDeterministic() ? "on" : "off",
+                HttpFetcher.getMaxCacheMegabytes(),
+                Tabulators.getPhraseLength(),
+                Tabulators.getNormalization(),
+                WindowedTabulation.getWindowMinutes(),
+                WindowedTabulation.getRefreshSeconds(),
+                Tabulators.getSourceTimeoutSeconds(),
+                Tabulators.getScoring(),
+                Tabulators.getMemoryBudgetMegabytes(),
+                Tabulators.getDeduplication(),
+                WatchedTabulation.getPollSeconds(),
+                WordCloudRenderer.getMask() == null ? "none" : WordCloudRenderer.getMask().getName());
+        switch (getRangedInt(1, 26, null)) {
+            case 1: // Back to main menu
+                break;
+            case 2: // Toggle off-heap frequency table
+                Tabulators.setOffHeap(!Tabulators.isOffHeap());
+                break;
+            case 3: // Set number of worker processes
+                DistributedTabulation.setWorkers(getRangedInt(1, 64, Strings.IO_INPUT_WORKERS.get()));
+                break;
+            case 4: // Add frequency table snapshot
+                System.out.println(Strings.IO_INPUT_SNAPSHOT_PATH.get());
+                Tabulators.addSnapshot(new SnapshotFromConsole().result());
+                break;
+            case 5: // Export last frequency table
+                System.out.println(Strings.IO_INPUT_SNAPSHOT_EXPORT_PATH.get());
+                Tabulators.exportSnapshot(new NewFileFromConsole().result());
+                break;
+            case 6: // Add output variant
+                WordCloudRenderer.addVariant(new RenderVariant(
+                        getRangedInt(50, 6000, Strings.IO_INPUT_IMAGE_WIDTH.get()),
+                        getRangedInt(50, 6000, Strings.IO_INPUT_IMAGE_HEIGHT.get()),
+                        new String[]{"png", "jpg", "bmp"}[getRangedInt(1, 3, Strings.IO_INPUT_VARIANT_FORMAT.get()) - 1]
+                ));
+                break;
+            case 7: // Remove all output variants
+                WordCloudRenderer.clearVariants();
+                break;
+            case 8: // Render all output variants
+                WordCloudRenderer.processVariants(Tabulators.execute());
+                break;
+            case 9: // Toggle deterministic rendering
+                WordCloudRenderer.setDeterministic(!WordCloudRenderer.isDeterministic());
+                break;
+            case 10: // Set HTTP cache size
+                HttpFetcher.setMaxCacheMegabytes(getRangedInt(1, 4096, Strings.IO_INPUT_HTTP_CACHE_SIZE.get()));
+                break;
+            case 11: // Import sources from a list file
+                System.out.println(Strings.IO_INPUT_SOURCE_LIST_PATH.get());
+                Tabulators.importSources(new FileFromConsole().result());
+                break;
+            case 12: // Set phrase length
+                Tabulators.setPhraseLength(getRangedInt(1, 3, Strings.IO_INPUT_PHRASE_LENGTH.get()));
+                break;
+            case 13: // Set word normalization
+                Tabulators.setNormalization(Normalization.values()[getRangedInt(1, 3, Strings.IO_INPUT_NORMALIZATION.get()) - 1]);
+                break;
+            case 14: // Render time-windowed word cloud
+                System.out.println(Strings.IO_INPUT_FILEPATH.get());
+                File file = new FileFromConsole().result();
+                if (file != null) {
+                    WindowedTabulation.start(file);
+                    System.out.printf(Strings.IO_INPUT_WINDOW_STOP.get(), WindowedTabulation.getWindowMinutes(), WindowedTabulation.getRefreshSeconds());
+                    new Scanner(System.in).nextLine();
+                    WindowedTabulation.stop();
+                }
+                break;
+            case 15: // Set time window
+                WindowedTabulation.setWindow(
+                        getRangedInt(1, 1440, Strings.IO_INPUT_WINDOW_MINUTES.get()),
+                        getRangedInt(1, 3600, Strings.IO_INPUT_WINDOW_REFRESH.get()));
+                break;
+            case 16: // Add named pipe
+                System.out.println(Strings.IO_INPUT_PIPE_PATH.get());
+                Tabulators.addPipe(new PipeFromConsole().result());
+                break;
+            case 17: // Add TCP socket
+                System.out.println(Strings.IO_INPUT_SOCKET.get());
+                Tabulators.add(new SocketFromConsole().result());
+                break;
+            case 18: // Set time limit per source
+                Tabulators.setSourceTimeoutSeconds(getRangedInt(0, 86400, Strings.IO_INPUT_SOURCE_TIMEOUT.get()));
+                break;
+            case 19: // Set scoring
+                Tabulators.setScoring(Scoring.values()[getRangedInt(1, 3, Strings.IO_INPUT_SCORING.get()) - 1]);
+                break;
+            case 20: // Set memory budget
+                Tabulators.setMemoryBudgetMegabytes(getRangedInt(0, 1 << 20, Strings.IO_INPUT_MEMORY_BUDGET.get()));
+                break;
+            case 21: // Set removal of near-duplicate sources
+                Tabulators.setDeduplication(Deduplication.values()[getRangedInt(1, 3, Strings.IO_INPUT_DEDUPLICATION.get()) - 1]);
+                break;
+            case 22: // Watch sources and render on changes
+                if (WatchedTabulation.start()) {
+                    System.out.println(Strings.IO_INPUT_WATCH_STOP.get());
+                    new Scanner(System.in).nextLine();
+                    WatchedTabulation.stop();
+                }
+                break;
+            case 23: // Set URL polling interval
+                WatchedTabulation.setPollSeconds(getRangedInt(1, 86400, Strings.IO_INPUT_POLL_SECONDS.get()));
+                break;
+            case 24: // Render animated word cloud
+                if (!WordCloudIO.animationFileExists() || WordCloudIO.willOverwrite()) AnimatedTabulation.render();
+                break;
+            case 25: // Set mask image
+                System.out.println(Strings.IO_INPUT_MASK_PATH.get());
+                WordCloudRenderer.setMask(new FileFromConsole().result());
+                break;
+            case 26: // Profile sources
+                Tabulators.profile();
+        }
+    }
+
+    /**
+     * <p>Clears the console (to keep the menu aligned with the top of the screen/window) by printing the ANSI escape sequences that move the cursor to the top left and erase the screen. Any terminal that shows the app's colours understands them, and unlike running "clear" or "cls", no process is started on every pass through the menu.</p>
+     */
+    // O(1) prints a fixed sequence
     private static void clearConsole() {
+        System.out.print(Strings.RUNNER_CLEAR_CONSOLE.get());
+        System.out.flush();
+    }
+
+    /**
+     * <p>Shows a progress line on standard error, overwriting the previous one, so that standard output stays free in batch mode. In the menu, a hint on how to cancel is shown above the first line. Nothing is shown once <code>hideProgress</code> has been called.</p>
+     *
+     * @param line The progress to be shown, or <code>null</code> to end the progress display.
+     */
+    // O(n) with n being the length of the line
+    public static synchronized void progress(String line) {
+        if (!isProgressShown) return;
+        if (line == null) {
+            if (hasProgressLine) System.err.println();
+            hasProgressLine = false;
+            return;
+        }
+        if (!hasProgressLine && isInteractive) System.err.println(Strings.PARSER_PROGRESS_CANCEL_HINT.get());
+        System.err.print("\r" + line + "   ");
+        hasProgressLine = true;
+    }
+
+    /**
+     * Stops <code>progress</code> from showing anything in this JVM. A <code>TabulationWorker</code> calls this, as its standard error is the coordinator's terminal, where the progress lines of several workers would overwrite each other.
+     */
+    // O(1) simple getter/setter
+    static synchronized void hideProgress() {
+        isProgressShown = false;
+    }
+
+    /**
+     * <p>Returns whether the user has pressed Enter since the last call, without blocking. Only the menu can be cancelled this way; in batch mode, standard input may be a source, so it is left alone.</p>
+     *
+     * @return True, if the user asked to cancel, or else, false.
+     */
+    // O(n) with n being the number of characters typed
+    public static boolean isCancelRequested() {
+        if (!isInteractive) return false;
         try {
-            String operatingSystem = System.getProperty("os.name");
-            if (operatingSystem.contains("Windows")) {
-                ProcessBuilder pb = new ProcessBuilder("cmd", "/c", "cls");
-                Process startProcess = pb.inheritIO().start();
-                startProcess.waitFor();
-            } else {
-                ProcessBuilder pb = new ProcessBuilder("clear");
-                Process startProcess = pb.inheritIO().start();
-                startProcess.waitFor();
-            }
-        } catch (Exception ignored) {
-        } // If this doesn't work, the app will still function, it will just be ugly.
+            if (System.in.available() == 0) return false;
+            while (System.in.available() > 0) System.in.read(); // Discards the line, so it does not reach the next menu prompt.
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     /**
-     * <p>Adds an event to the log.</p>
+     * <p>Adds an event to the log. While batch mode is watching its sources, which never ends by itself, events are printed to standard error straight away instead.</p>
      * <p>This method runs in constant time O(1).</p>
      *
      * @param event A <code>String</code> which cannot be <code>null</code>.
      */
     // O(1) add to an ArrayList
     public static void log(String event) {
-        if (event != null) LOG.add(event);
+        if (event == null) return;
+        if (isLogStreamed) System.err.println(event + "\n");
+        else LOG.add(event);
+    }
+
+    /**
+     * <p>Adds one source given on the command line in batch mode. The source type is told by its form: "-" for standard input, "pipe:" or "tcp://" prefixes, "http://" or "https://" for URLs, and a file path otherwise.</p>
+     *
+     * @param source A source argument.
+     * @return True, if the source is valid, or else, false.
+     */
+    // O(n) with n being the length of the argument
+    private static boolean addSource(String source) {
+        if (source.equals("-")) {
+            Tabulators.addStdin();
+        } else if (source.startsWith("pipe:")) {
+            File pipe = FileFromConsole.toFile(source.substring(5));
+            if (!PipeFromConsole.isReadablePath(pipe)) return false;
+            Tabulators.addPipe(pipe);
+        } else if (source.startsWith("tcp://")) {
+            InetSocketAddress address = SocketFromConsole.toAddress(source);
+            if (!SocketFromConsole.isUsable(address)) return false;
+            Tabulators.add(address);
+        } else if (source.startsWith("http://") || source.startsWith("https://")) {
+            URL url = URLFromConsole.toURL(source);
+            if (url == null) return false;
+            Tabulators.add(url); // Reachability is not checked here; an unreachable page is reported when it is read.
+        } else {
+            File file = FileFromConsole.toFile(source);
+            if (file == null || !FileFromConsole.isRegularFile(file)) return false;
+            Tabulators.add(file);
+        }
+        return true;
+    }
+
+    /**
+     * <p>Runs the app without the menu: applies the options, adds the sources given as arguments, renders the word cloud to the output path without asking before overwriting it, and prints the log to standard error.</p>
+     * <p>This method runs in <b>linear time O(n)</b>, see <code>Tabulators.execute</code> and <code>WordCloudRenderer.refresh</code>.</p>
+     *
+     * @param args Options and sources, see <code>Strings.RUNNER_USAGE</code>.
+     * @return The exit code: 0 if an image was rendered, 1 if not, or 2 if the arguments are invalid.
+     */
+    // O(n) see JavaDocs
+    private static int runBatch(String[] args) {
+        boolean isValid = true;
+        boolean isTiming = false;
+        boolean isProfiling = false;
+        boolean isWatching = false;
+        boolean isAnimating = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                boolean hasValue = i + 1 < args.length;
+                switch (arg) {
+                    case "-h":
+                    case "--help":
+                        System.err.println(Strings.RUNNER_USAGE.get());
+                        return 0;
+                    case "-o":
+                    case "--output":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        File output = new File(args[++i]).getAbsoluteFile();
+                        output.getParentFile().mkdirs();
+                        WordCloudIO.setImageDir(output.getParentFile());
+                        WordCloudIO.setImageFileName(output);
+                        break;
+                    case "--list":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        Tabulators.importSources(FileFromConsole.toFile(args[++i]));
+                        break;
+                    case "--min-word-length":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        Tabulators.setMinWordLength(Math.max(1, Integer.parseInt(args[++i])));
+                        break;
+                    case "--max-words":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        WordCloudRenderer.setMaxWords(parseRangedInt(args[++i], 1, 100));
+                        break;
+                    case "--phrase-length":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        Tabulators.setPhraseLength(Math.min(3, Math.max(1, Integer.parseInt(args[++i]))));
+                        break;
+                    case "--size":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        String[] size = args[++i].toLowerCase().split("x");
+                        if (size.length != 2) throw new IllegalArgumentException(arg);
+                        WordCloudRenderer.setImageSize(new int[]{parseRangedInt(size[0], 300, 3000), parseRangedInt(size[1], 300, 3000)});
+                        break;
+                    case "--timeout":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        Tabulators.setSourceTimeoutSeconds(Math.max(0, Integer.parseInt(args[++i])));
+                        break;
+                    case "--scoring":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        Tabulators.setScoring(Scoring.valueOf(args[++i].toUpperCase()));
+                        break;
+                    case "--watch":
+                        isWatching = true;
+                        break;
+                    case "--profile":
+                        isProfiling = true;
+                        break;
+                    case "--timing":
+                        isTiming = true;
+                        break;
+                    case "--mask":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        File mask = FileFromConsole.toFile(args[++i]);
+                        if (mask == null || !FileFromConsole.isRegularFile(mask)) throw new IllegalArgumentException(arg);
+                        WordCloudRenderer.setMask(mask);
+                        break;
+                    case "--animate":
+                        isAnimating = true;
+                        break;
+                    case "--dedup":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        Tabulators.setDeduplication(Deduplication.valueOf(args[++i].toUpperCase()));
+                        break;
+                    case "--memory-budget":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        Tabulators.setMemoryBudgetMegabytes(Math.max(0, Integer.parseInt(args[++i])));
+                        break;
+                    case "--normalization":
+                        if (!hasValue) throw new IllegalArgumentException(arg);
+                        Tabulators.setNormalization(Normalization.valueOf(args[++i].toUpperCase()));
+                        break;
+                    default:
+                        if (arg.startsWith("--")) throw new IllegalArgumentException(arg);
+                        if (!addSource(arg)) {
+                            log(Strings.BATCH_FAILURE_INVALID.get() + " " + arg);
+                            isValid = false;
+                        }
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) { // NumberFormatException included
+            System.err.println(Strings.IO_VALIDATION_FAILED.get());
+            System.err.println(Strings.RUNNER_USAGE.get());
+            return 2;
+        }
+        Tabulators.bufferStopWords(); // Only once the arguments are known to be valid, so that "--help" and typos return straight away
+        if (isProfiling) {
+            if (isValid) Tabulators.profile();
+            printLog(System.err);
+            return isValid ? 0 : 1;
+        }
+        if (isWatching) {
+            printLog(System.err);
+            isLogStreamed = true;
+            if (!isValid || !WatchedTabulation.start()) return 1;
+            try {
+                WatchedTabulation.await(); // Until the process is terminated
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }
+        if (isAnimating) {
+            boolean isWritten = isValid && AnimatedTabulation.render();
+            if (isWritten && isTiming) logTimeToFirstRender();
+            printLog(System.err);
+            return isWritten ? 0 : 1;
+        }
+        List<Map.Entry<String, Integer>> list = isValid ? Tabulators.execute() : null;
+        if (list != null) WordCloudRenderer.refresh(list);
+        if (list != null && isTiming) logTimeToFirstRender();
+        printLog(System.err);
+        return list != null ? 0 : 1;
+    }
+
+    /**
+     * Logs the time from the start of the JVM, and from the start of the app's own code, to the end of the first render, so that start-up improvements such as a class data sharing archive can be measured.
+     */
+    // O(1) java.lang.management is only loaded when timing was asked for
+    private static void logTimeToFirstRender() {
+        long appMillis = (System.nanoTime() - STARTED_NANOS) / 1_000_000;
+        log(String.format(Strings.RUNNER_TIME_TO_FIRST_RENDER.get(), ManagementFactory.getRuntimeMXBean().getUptime(), appMillis));
     }
 
     /**
      * On start up, this method calls the <code>Tabulators</code> API method to buffer the list of stop words; it then continuously displays relevant information to the user and enables them to make method calls via the menu.
+     * <p>If arguments are given, the app runs once in batch mode instead, so that it can be used in scripts and pipelines, e.g. <code>grep ERROR app.log | java ie.gmit.dip.Runner -o errors.png -</code>.</p>
      *
-     * @param args are ignored.
+     * @param args Options and sources for batch mode, or none to start the menu.
      */
     // O(n) because that's the slowest in any method in this package
     public static void main(String[] args) {
+        if (args.length > 0) System.exit(runBatch(args));
+        isInteractive = true;
         Tabulators.bufferStopWords();
         do {
             clearConsole();
@@ -168,7 +537,7 @@ public final class Runner {
 
             printTabulators();
 
-            printLog();
+            printLog(System.out);
 
             navigateMenu();
         } while (!isQuitting);
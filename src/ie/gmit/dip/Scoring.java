@@ -0,0 +1,22 @@
+package ie.gmit.dip;
+
+/**
+ * An enumeration of the ways <code>Tabulators</code> can rank words across several sources.
+ */
+public enum Scoring {
+    RAW("raw counts"),
+    SOURCE_WEIGHTED("equal weight per source"),
+    TF_IDF("TF-IDF");
+
+    private final String label;
+
+    Scoring(String label) {
+        this.label = label;
+    }
+
+    // O(1) simple getter
+    @Override
+    public String toString() {
+        return this.label;
+    }
+}
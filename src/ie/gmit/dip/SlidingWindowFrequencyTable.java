@@ -0,0 +1,108 @@
+package ie.gmit.dip;
+
+import java.util.*;
+
+/**
+ * <p>A frequency table that only counts the words seen within a sliding time window, such as the last 15 minutes of a log or chat stream.</p>
+ * <p>The window is divided into a fixed number of <b>time slices</b>, each with its own frequency table, kept in a <b>ring buffer</b>. The running totals of the whole window are kept in a separate table. When time moves past a slice, its counts are subtracted from the totals and the slice is reused, so an expiring slice costs as much as the words it holds, not as much as the whole window.</p>
+ * <p>The words are also kept in a <code>TreeSet</code> ordered by their running totals, which is updated with every count, so the current top words can be read at any time without sorting the window.</p>
+ * <p>All methods are synchronized, so one thread can feed the table while another renders from it.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class SlidingWindowFrequencyTable {
+    private final long SLICE_MILLIS;
+    private final List<Map<String, Integer>> SLICES = new ArrayList<>();
+    private final Map<String, Integer> TOTALS = new HashMap<>();
+    private final TreeSet<String> RANKING = new TreeSet<>((a, b) -> {
+        int byCount = Integer.compare(TOTALS.get(b), TOTALS.get(a));
+        return byCount != 0 ? byCount : a.compareTo(b);
+    });
+    private long currentSlice = Long.MIN_VALUE;
+
+    /**
+     * @param windowMillis The length of the window in milliseconds.
+     * @param slices       The number of slices the window is divided into; more slices let words expire more smoothly.
+     */
+    public SlidingWindowFrequencyTable(long windowMillis, int slices) {
+        this.SLICE_MILLIS = Math.max(1, windowMillis / slices);
+        for (int i = 0; i < slices; i++) SLICES.add(new HashMap<>());
+    }
+
+    /**
+     * <p>Moves the end of the window forward to <code>timestamp</code>, expiring every slice that falls out of the window. Timestamps older than the current end are ignored, so the window never moves back.</p>
+     * <p>This method runs in <b>linear time O(n log m)</b> with n being the number of words in the expired slices and m being the number of words in the window.</p>
+     *
+     * @param timestamp The new end of the window in milliseconds since the epoch.
+     */
+    // O(n log m) see JavaDocs
+    public synchronized void advance(long timestamp) {
+        long slice = Math.floorDiv(timestamp, SLICE_MILLIS);
+        if (slice <= currentSlice) return;
+        if (currentSlice != Long.MIN_VALUE) {
+            long expired = Math.min(slice - currentSlice, SLICES.size()); // Past a full turn, every slice has expired once.
+            for (long s = currentSlice + 1; s <= currentSlice + expired; s++) expire(SLICES.get((int) Math.floorMod(s, (long) SLICES.size())));
+        }
+        currentSlice = slice;
+    }
+
+    // O(n log m) subtracts one slice from the totals
+    private void expire(Map<String, Integer> slice) {
+        for (Map.Entry<String, Integer> entry : slice.entrySet()) {
+            String word = entry.getKey();
+            RANKING.remove(word); // The ranking must be updated before the count it is ordered by changes.
+            int total = TOTALS.get(word) - entry.getValue();
+            if (total > 0) {
+                TOTALS.put(word, total);
+                RANKING.add(word);
+            } else TOTALS.remove(word);
+        }
+        slice.clear();
+    }
+
+    /**
+     * <p>Counts one occurrence of <code>word</code> at <code>timestamp</code>. A timestamp past the end of the window moves the window forward first; a timestamp that has already left the window is not counted.</p>
+     * <p>This method runs in <b>logarithmic time O(log m)</b> with m being the number of words in the window, plus the cost of <code>advance</code>.</p>
+     *
+     * @param timestamp The time of the occurrence in milliseconds since the epoch.
+     * @param word      A single token.
+     */
+    // O(log m) see JavaDocs
+    public synchronized void put(long timestamp, String word) {
+        advance(timestamp);
+        long slice = Math.floorDiv(timestamp, SLICE_MILLIS);
+        if (slice <= currentSlice - SLICES.size()) return;
+        SLICES.get((int) Math.floorMod(slice, (long) SLICES.size())).merge(word, 1, Integer::sum);
+        if (TOTALS.containsKey(word)) RANKING.remove(word);
+        TOTALS.merge(word, 1, Integer::sum);
+        RANKING.add(word);
+    }
+
+    /**
+     * <p>Returns the most frequent words of the current window, sorted by frequency in descending order, in the form returned by <code>Tabulators.execute</code>.</p>
+     * <p>This method runs in <b>linear time O(k)</b> with k being <code>limit</code>.</p>
+     *
+     * @param limit The maximum number of words returned.
+     * @return A new list of words and their counts within the window. The list is empty if the window holds no words.
+     */
+    // O(k) see JavaDocs
+    public synchronized List<Map.Entry<String, Integer>> top(int limit) {
+        List<Map.Entry<String, Integer>> list = new LinkedList<>();
+        for (String word : RANKING) {
+            if (list.size() >= limit) break;
+            list.add(new AbstractMap.SimpleImmutableEntry<>(word, TOTALS.get(word)));
+        }
+        return list;
+    }
+
+    /**
+     * Returns the number of distinct words in the current window.
+     *
+     * @return The number of distinct words.
+     */
+    // O(1) simple getter
+    public synchronized int size() {
+        return TOTALS.size();
+    }
+}
@@ -0,0 +1,55 @@
+package ie.gmit.dip;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * <p>A <code>Runnable</code> used to add the counts of a <code>FrequencySnapshot</code> file to a frequency table, so that tables exported by earlier runs or other machines can be combined without re-parsing their sources.</p>
+ * <p>The counts are taken as they are: stop words and the minimum word length were already applied when the snapshot was exported.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class SnapshotFrequencyTabulator extends FrequencyTabulator<File> {
+    /**
+     * <p>Snapshots are binary and are not read line by line, so this method always returns <code>null</code>; see <code>tabulate</code>.</p>
+     *
+     * @param source The snapshot file.
+     * @return <code>null</code>.
+     */
+    // O(1) no loops here
+    public BufferedReader read(File source) {
+        return null;
+    }
+
+    /**
+     * <p>Memory-maps the snapshot and adds each of its counts to <code>frequencyTable</code>.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of entries in the snapshot.</p>
+     *
+     * @param frequencyTable The map that holds the frequency table.
+     */
+    // O(n) see JavaDocs
+    @Override
+    public void tabulate(Map<String, Integer> frequencyTable) {
+        try {
+            FrequencySnapshot.mergeInto(FrequencySnapshot.open(source()), frequencyTable);
+        } catch (IOException e) {
+            Runner.log(Strings.PARSER_ERROR_READING_SOURCE.get());
+        }
+    }
+
+    // O(1) no loops here
+    public String toString() {
+        try {
+            return source().getCanonicalPath();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public SnapshotFrequencyTabulator(File file, Map<String, Integer> frequencyTable) {
+        super(file, frequencyTable);
+    }
+}
@@ -0,0 +1,22 @@
+package ie.gmit.dip;
+
+import java.io.File;
+
+/**
+ * <p>A class that takes in user input as a <code>String</code> on construction, safely interprets it as a <code>File</code> path and verifies that the file is a frequency table snapshot.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class SnapshotFromConsole extends FileFromConsole {
+    /**
+     * <p>Verifies that the <code>File</code> exists and starts with a supported snapshot header.</p>
+     *
+     * @param file The <code>File</code> in question.
+     * @return True, if the file is a snapshot, otherwise false.
+     */
+    // O(1) reads the header only
+    public boolean validate(File file) {
+        return super.validate(file) && FrequencySnapshot.isSnapshot(file);
+    }
+}
@@ -0,0 +1,61 @@
+package ie.gmit.dip;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * <p>A <code>Runnable</code> used to read a text from a TCP connection line by line and token by token, count the occurrences of each token, and store the frequency table in a <code>Map</code>. The text ends when the other side closes the connection.</p>
+ * <p>If the source address has a host, the tabulator connects to it, e.g. to a server started with <code>nc -l 9000 &lt; app.log</code>. If it has no host, the tabulator listens on the port and reads the first connection it accepts, e.g. from <code>tail -f app.log | nc localhost 9000</code>.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class SocketFrequencyTabulator extends FrequencyTabulator<InetSocketAddress> {
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    /**
+     * <p>Connects to, or accepts a connection on, the source address and returns a <code>BufferedReader</code> with a large buffer that reads the connection as UTF-8 text. Closing the reader closes the connection.</p>
+     *
+     * @param source The address to connect to, or an address without a host to listen on.
+     * @return A <code>BufferedReader</code> for the connection, or <code>null</code> if no connection can be made.
+     */
+    // O(1) no loops here, disregarding the wait for a connection
+    public BufferedReader read(InetSocketAddress source) {
+        try {
+            Socket socket;
+            if (isListening(source)) {
+                try (ServerSocket server = new ServerSocket(source.getPort())) {
+                    socket = server.accept();
+                }
+            } else {
+                socket = new Socket();
+                socket.connect(source, CONNECT_TIMEOUT);
+            }
+            socket.setReceiveBufferSize(STREAM_BUFFER_SIZE);
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), STREAM_BUFFER_SIZE);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // O(1) no loops here
+    static boolean isListening(InetSocketAddress address) {
+        return address.getHostString().isEmpty();
+    }
+
+    // O(1) no loops here
+    public String toString() {
+        InetSocketAddress source = source();
+        return "tcp://" + source.getHostString() + ":" + source.getPort();
+    }
+
+    public SocketFrequencyTabulator(InetSocketAddress address, Map<String, Integer> frequencyTable) {
+        super(address, frequencyTable);
+    }
+}
@@ -0,0 +1,54 @@
+package ie.gmit.dip;
+
+import java.net.InetSocketAddress;
+
+/**
+ * <p>A class that takes in user input as a <code>String</code> on construction, safely interprets it as a TCP address of the form <code>host:port</code>, or <code>:port</code> to listen on a local port, and verifies that the port is valid and the host can be resolved.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class SocketFromConsole extends ConsoleValidator<InetSocketAddress> {
+    /**
+     * <p>Safely interprets a <code>String</code> as a TCP address and returns the resulting object.</p>
+     *
+     * @param input A string of the form <code>host:port</code> or <code>:port</code>, optionally starting with "tcp://".
+     * @return An <code>InetSocketAddress</code> based on the <code>input</code>, or <code>null</code> if it has no valid port.
+     */
+    // O(n) see toAddress
+    public InetSocketAddress recast(String input) {
+        return toAddress(input);
+    }
+
+    // O(n) with n being the length of the input, shared with Runner's batch mode
+    static InetSocketAddress toAddress(String input) {
+        input = input.trim();
+        if (input.startsWith("tcp://")) input = input.substring(6);
+        int colon = input.lastIndexOf(':');
+        if (colon < 0) return null;
+        try {
+            int port = Integer.parseInt(input.substring(colon + 1));
+            String host = input.substring(0, colon);
+            if (port < 1 || port > 65535) return null;
+            return host.isEmpty() ? InetSocketAddress.createUnresolved("", port) : new InetSocketAddress(host, port);
+        } catch (IllegalArgumentException e) { // NumberFormatException included
+            return null;
+        }
+    }
+
+    /**
+     * <p>Verifies that the address has a valid port and, unless it is a local port to listen on, a host that could be resolved.</p>
+     *
+     * @param address The <code>InetSocketAddress</code> in question.
+     * @return True, if the address can be used, otherwise false.
+     */
+    // O(1) see isUsable
+    public boolean validate(InetSocketAddress address) {
+        return isUsable(address);
+    }
+
+    // O(1) no loops here, shared with Runner's batch mode
+    static boolean isUsable(InetSocketAddress address) {
+        return address != null && (SocketFrequencyTabulator.isListening(address) || !address.isUnresolved());
+    }
+}
@@ -0,0 +1,263 @@
+package ie.gmit.dip;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * <p>A store of <b>per-source word counts in a columnar layout</b>, used to score words across sources rather than by their pooled counts.</p>
+ * <p>All sources share one dictionary that gives every distinct word an <code>int</code> ID. While a source is tabulated, it counts into its own <code>Column</code>, a small primitive hash table of IDs and counts; when it is sealed, the column is compacted into two sorted <code>int</code> arrays. A word therefore costs 8 bytes per source it occurs in, instead of a full map entry per source, and document frequencies are found by a single pass over the columns.</p>
+ * <p>Because every column is sorted by ID, the ID space can be split into ranges that are scored by separate threads without any locking: each thread reads only its own range of every column and writes only its own range of the score array.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class SourceColumns {
+    private final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private final AtomicInteger NEXT_ID = new AtomicInteger();
+    private final List<Column> COLUMNS = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Returns a new, empty column for one source. The column is a <code>Map</code>, so it can be passed to <code>FrequencyTabulator.tabulate</code>.
+     *
+     * @return The new column.
+     */
+    // O(1) no loops here
+    public Column newColumn() {
+        Column column = new Column();
+        COLUMNS.add(column);
+        return column;
+    }
+
+    /**
+     * Removes a column, so that its source is left out of the scores, e.g. because it is a near-duplicate of another source.
+     *
+     * @param column A column returned by <code>newColumn</code>.
+     */
+    // O(c) with c being the number of columns
+    public void remove(Column column) {
+        COLUMNS.remove(column);
+    }
+
+    // O(1) hash map lookup; new words are assigned the next ID atomically
+    private int id(String word) {
+        Integer id = IDS.get(word);
+        return id != null ? id : IDS.computeIfAbsent(word, w -> NEXT_ID.getAndIncrement());
+    }
+
+    /**
+     * <p>Scores every word and returns the <code>limit</code> highest-scoring words, sorted by score in descending order. Scores are scaled so that the best word has a value of 1,000,000, which keeps their ratios for the renderer's font sizes.</p>
+     * <p>This method runs in <b>linear time O(n / p + w log k)</b> with n being the total number of entries in all columns, p the number of threads, w the number of distinct words and k being <code>limit</code>.</p>
+     *
+     * @param scoring The scoring to be applied.
+     * @param limit   The maximum number of words returned.
+     * @return The top words and their scaled scores, or <code>null</code> if no word was counted.
+     */
+    // O(n / p + w log k) see JavaDocs
+    public List<Map.Entry<String, Integer>> top(Scoring scoring, int limit) {
+        int words = NEXT_ID.get();
+        if (words == 0) return null;
+        double[] scores = score(scoring, words);
+
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(id -> scores[id])); // Min-heap of the best words so far
+        for (int id = 0; id < words; id++) {
+            if (scores[id] <= 0) continue;
+            if (heap.size() < limit) heap.add(id);
+            else if (scores[id] > scores[heap.peek()]) {
+                heap.poll();
+                heap.add(id);
+            }
+        }
+        if (heap.isEmpty()) return null;
+
+        String[] dictionary = new String[words];
+        for (Map.Entry<String, Integer> entry : IDS.entrySet()) dictionary[entry.getValue()] = entry.getKey();
+        LinkedList<Map.Entry<String, Integer>> list = new LinkedList<>();
+        double best = 0;
+        for (int id : heap) best = Math.max(best, scores[id]);
+        while (!heap.isEmpty()) {
+            int id = heap.poll();
+            int scaled = (int) Math.max(1, Math.round(scores[id] / best * 1_000_000));
+            list.addFirst(new AbstractMap.SimpleImmutableEntry<>(dictionary[id], scaled)); // The heap yields the lowest score first.
+        }
+        return list;
+    }
+
+    /**
+     * <p>Computes the score of every word ID. The ID space is split into one range per processor, and the ranges are scored simultaneously.</p>
+     *
+     * @param scoring The scoring to be applied.
+     * @param words   The number of word IDs.
+     * @return The score of each word, indexed by ID.
+     */
+    // O(n / p) see top
+    private double[] score(Scoring scoring, int words) {
+        List<Column> columns = new ArrayList<>(COLUMNS);
+        double[] scores = new double[words];
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), words / 4096 + 1));
+        int rangeSize = (words + threads - 1) / threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int from = t * rangeSize;
+            int to = Math.min(words, from + rangeSize);
+            executor.execute(() -> scoreRange(scoring, columns, scores, from, to));
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return scores;
+    }
+
+    /**
+     * <p>Scores the word IDs from <code>from</code> (inclusive) to <code>to</code> (exclusive). The document frequencies needed for TF-IDF are counted for this range first, in a pass over the same slices of the columns.</p>
+     */
+    // O(n / p) with n / p being the number of column entries in the range
+    private static void scoreRange(Scoring scoring, List<Column> columns, double[] scores, int from, int to) {
+        int sources = columns.size();
+        int[] documentFrequencies = null;
+        if (scoring == Scoring.TF_IDF) {
+            documentFrequencies = new int[to - from];
+            for (Column column : columns) {
+                for (int i = column.indexOf(from); i < column.ids.length && column.ids[i] < to; i++) documentFrequencies[column.ids[i] - from]++;
+            }
+        }
+        for (Column column : columns) {
+            if (column.total == 0) continue;
+            for (int i = column.indexOf(from); i < column.ids.length && column.ids[i] < to; i++) {
+                double tf = (double) column.counts[i] / column.total; // Every source weighs the same, however long it is.
+                if (scoring == Scoring.TF_IDF) {
+                    double idf = Math.log((1.0 + sources) / (1.0 + documentFrequencies[column.ids[i] - from])) + 1.0; // Smoothed, so that words found in every source still count a little.
+                    scores[column.ids[i]] += tf * idf;
+                } else scores[column.ids[i]] += tf;
+            }
+        }
+    }
+
+    /**
+     * <p>The counts of one source. While the source is tabulated, counts are kept in a primitive open-addressing table of word IDs; <code>seal</code> then compacts them into two arrays sorted by ID.</p>
+     * <p>A column is only written through <code>merge</code>, as used by <code>FrequencyTabulator</code>, and only read through <code>SourceColumns.top</code>. Every other operation that reads or replaces counts throws an <code>UnsupportedOperationException</code> rather than give a wrong answer. A column is written by a single tabulator thread, so <code>merge</code> is not synchronized.</p>
+     */
+    public final class Column extends AbstractMap<String, Integer> {
+        private int[] slotIds = new int[256];
+        private int[] slotCounts = new int[256];
+        private int size;
+        private int[] ids = new int[0];
+        private int[] counts = new int[0];
+        private long total;
+
+        private Column() {
+            Arrays.fill(slotIds, -1);
+        }
+
+        // O(1) amortised, linear probing in a table that is at most half full
+        private int merge(int id, int value, BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
+            int mask = slotIds.length - 1;
+            int index = (id * 0x9E3779B9) >>> 7 & mask;
+            while (slotIds[index] != -1 && slotIds[index] != id) index = (index + 1) & mask;
+            int count = value;
+            if (slotIds[index] == -1) {
+                slotIds[index] = id;
+                size++;
+            } else {
+                Integer merged = remappingFunction.apply(slotCounts[index], value);
+                if (merged == null) throw new UnsupportedOperationException("Words cannot be removed from a column.");
+                count = merged;
+            }
+            total += count - slotCounts[index];
+            slotCounts[index] = count;
+            if (size * 2 > slotIds.length) grow();
+            return count;
+        }
+
+        // O(n) reinserts every entry
+        private void grow() {
+            int[] oldIds = slotIds;
+            int[] oldCounts = slotCounts;
+            slotIds = new int[oldIds.length * 2];
+            slotCounts = new int[oldIds.length * 2];
+            Arrays.fill(slotIds, -1);
+            int mask = slotIds.length - 1;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] == -1) continue;
+                int index = (oldIds[i] * 0x9E3779B9) >>> 7 & mask;
+                while (slotIds[index] != -1) index = (index + 1) & mask;
+                slotIds[index] = oldIds[i];
+                slotCounts[index] = oldCounts[i];
+            }
+        }
+
+        /**
+         * <p>Compacts the column into arrays sorted by word ID and releases the hash table. Must be called once the source has been tabulated.</p>
+         * <p>This method runs in <b>linearithmic time O(n log n)</b> with n being the number of distinct words in the source.</p>
+         */
+        // O(n log n) see JavaDocs
+        public void seal() {
+            long[] packed = new long[size];
+            int n = 0;
+            for (int i = 0; i < slotIds.length; i++) {
+                if (slotIds[i] != -1) packed[n++] = ((long) slotIds[i] << 32) | (slotCounts[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(packed); // IDs are never negative, so packed values sort by ID.
+            ids = new int[n];
+            counts = new int[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = (int) (packed[i] >>> 32);
+                counts[i] = (int) packed[i];
+            }
+            slotIds = new int[0];
+            slotCounts = new int[0];
+        }
+
+        // O(log n) binary search for the first entry with an ID of at least id
+        private int indexOf(int id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        /**
+         * <p>Combines <code>value</code> with the count of <code>key</code> in this column by <code>remappingFunction</code>, or stores <code>value</code> if the word is new to the column.</p>
+         * <p>This method runs in <b>amortised constant time O(1)</b>.</p>
+         *
+         * @param key               A word.
+         * @param value             The number of occurrences to add, usually.
+         * @param remappingFunction The function that combines the stored count and <code>value</code>, usually <code>Integer::sum</code>; it may not return <code>null</code>.
+         * @return The new count of the word in this column.
+         */
+        // O(1) see JavaDocs
+        @Override
+        public Integer merge(String key, Integer value, BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
+            return merge(id(key), value, remappingFunction);
+        }
+
+        // O(1) columns are only added to, see merge
+        @Override
+        public Integer put(String key, Integer value) {
+            throw new UnsupportedOperationException("Counts are added to a column through merge.");
+        }
+
+        // O(1) columns are only read by SourceColumns.top
+        @Override
+        public Integer get(Object key) {
+            throw new UnsupportedOperationException("Columns are read through SourceColumns.top.");
+        }
+
+        // O(1) simple getter
+        @Override
+        public int size() {
+            return size;
+        }
+
+        // O(1) columns are only read by SourceColumns.top
+        @Override
+        public Set<Entry<String, Integer>> entrySet() {
+            throw new UnsupportedOperationException("Columns are read through SourceColumns.top.");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ie.gmit.dip;
+
+/**
+ * <p>The profile of a source, made by <code>FrequencyTabulator.profile</code> in a single pass that builds no frequency table: how much text it has, how many tokens, roughly how many distinct ones, how many of them are stop words, and how fast it was read.</p>
+ * <p>Distinct tokens are estimated by a <code>HyperLogLog</code> sketch, so a profile takes the same small amount of memory however large its source is.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class SourceProfile {
+    private final String NAME;
+    private final HyperLogLog VOCABULARY = new HyperLogLog();
+    private long bytes;
+    private long tokens;
+    private long stopWords;
+    private long nanos;
+
+    /**
+     * @param name The name of the source, as shown in the list of sources.
+     */
+    public SourceProfile(String name) {
+        this.NAME = name;
+    }
+
+    /**
+     * Adds a token read from the source.
+     *
+     * @param token      The token.
+     * @param isStopWord True, if the token is a stop word.
+     */
+    // O(n) with n being the length of the token, see HyperLogLog.add
+    public void add(String token, boolean isStopWord) {
+        tokens++;
+        if (isStopWord) stopWords++;
+        VOCABULARY.add(token);
+    }
+
+    /**
+     * Records the amount of text read and the time it took, once the source has been read.
+     *
+     * @param bytes The amount of text read, see <code>FrequencyTabulator.getBytesRead</code>.
+     * @param nanos The time spent reading in nanoseconds.
+     */
+    // O(1) simple setter
+    public void finish(long bytes, long nanos) {
+        this.bytes = bytes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Returns the amount of text read from the source, as counted by <code>FrequencyTabulator.getBytesRead</code>.
+     *
+     * @return The number of characters read.
+     */
+    // O(1) simple getter
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of tokens read from the source, including stop words and other discarded ones.
+     *
+     * @return The number of tokens.
+     */
+    // O(1) simple getter
+    public long getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns the sketch of the distinct tokens, which can be merged with those of other sources.
+     *
+     * @return The <code>HyperLogLog</code> sketch.
+     */
+    // O(1) simple getter
+    public HyperLogLog getVocabulary() {
+        return VOCABULARY;
+    }
+
+    /**
+     * Returns the share of tokens that are stop words, which are read but never counted.
+     *
+     * @return A value from 0 to 1.
+     */
+    // O(1) no loops just computation
+    public double getStopWordRatio() {
+        return tokens == 0 ? 0 : (double) stopWords / tokens;
+    }
+
+    /**
+     * Returns the rate at which the source was read, including tokenization and, for URLs, the download.
+     *
+     * @return The throughput in megabytes per second.
+     */
+    // O(1) no loops just computation
+    public double getMegabytesPerSecond() {
+        return nanos == 0 ? 0 : bytes / 1048576.0 / (nanos / 1e9);
+    }
+
+    /**
+     * Returns the profile as one line of the report.
+     *
+     * @return The name of the source and its figures.
+     */
+    // O(1) see HyperLogLog.estimate
+    @Override
+    public String toString() {
+        return String.format(Strings.PROFILE_SOURCE.get(), NAME, bytes / 1048576.0, tokens, VOCABULARY.estimate(), 100 * getStopWordRatio(), getMegabytesPerSecond());
+    }
+}
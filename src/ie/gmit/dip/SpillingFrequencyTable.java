@@ -0,0 +1,218 @@
+package ie.gmit.dip;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * <p>A frequency table that stays within a <b>memory budget</b> by spilling to disk. Counts are kept in an in-memory table until its estimated size exceeds the budget; the table is then written to a temporary file as a run of partial counts sorted by word, in the <code>FrequencySnapshot</code> format, and emptied.</p>
+ * <p>Because every run is sorted, the runs are combined by a single streaming k-way merge, which adds up the partial counts of each word and keeps only the best words in a small heap. The result is exact however many runs there are, and memory use is bounded by the budget plus one decoded entry per run.</p>
+ * <p>The class implements <code>Map&lt;String, Integer&gt;</code>, so it can be passed to any <code>FrequencyTabulator</code>; only <code>merge</code> is supported for writing. Threads count concurrently into the in-memory table and are held back only while it is being spilled.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class SpillingFrequencyTable extends AbstractMap<String, Integer> {
+    static final int ENTRY_BYTES = 112; // Rough heap cost of one entry: map node, String, its characters and an Integer; also used by Tabulators.profile
+    private static final int CHECK_INTERVAL = 4096; // Merges between two size checks
+    private final Map<String, Integer> TABLE;
+    private final long MAX_ENTRIES;
+    private final List<File> RUNS = new ArrayList<>();
+    private final ReadWriteLock LOCK = new ReentrantReadWriteLock();
+    private final AtomicInteger MERGES = new AtomicInteger();
+    private File directory;
+    private boolean isSpillFailed;
+
+    /**
+     * @param table           The in-memory table that counts are kept in until they are spilled; it must be thread-safe.
+     * @param budgetMegabytes The memory budget of the in-memory table in megabytes.
+     */
+    public SpillingFrequencyTable(Map<String, Integer> table, int budgetMegabytes) {
+        this.TABLE = table;
+        this.MAX_ENTRIES = Math.max(1, budgetMegabytes * 1024L * 1024L / ENTRY_BYTES);
+    }
+
+    /**
+     * <p>Adds <code>value</code> to the count stored for <code>key</code>, spilling the in-memory table to a new run first if it has outgrown the budget. Counts are always summed.</p>
+     * <p>This method runs in <b>amortised constant time O(1)</b>, not counting spills; a spill is linearithmic in the number of entries spilled.</p>
+     *
+     * @param key               A word.
+     * @param value             The number of occurrences to add.
+     * @param remappingFunction Ignored; counts are always summed.
+     * @return The count of the word in the in-memory table, which may be a partial count.
+     */
+    // O(1) see JavaDocs
+    @Override
+    public Integer merge(String key, Integer value, BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
+        if (MERGES.incrementAndGet() % CHECK_INTERVAL == 0 && TABLE.size() > MAX_ENTRIES) spill();
+        LOCK.readLock().lock();
+        try {
+            return TABLE.merge(key, value, Integer::sum);
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * <p>Writes the in-memory table to a new run file and empties it. If the run cannot be written, a warning is logged once and counting carries on in memory only.</p>
+     * <p>This method runs in <b>linearithmic time O(n log n)</b> with n being the number of entries in memory, as each run is sorted by word.</p>
+     */
+    // O(n log n) see JavaDocs
+    private void spill() {
+        LOCK.writeLock().lock();
+        try {
+            if (isSpillFailed || TABLE.size() <= MAX_ENTRIES) return; // Another thread spilled first.
+            writeRun();
+        } catch (IOException e) {
+            isSpillFailed = true;
+            Runner.log(Strings.PARSER_SPILL_ERROR.get());
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    // O(n log n) the caller holds the write lock
+    private void writeRun() throws IOException {
+        if (directory == null) {
+            directory = Files.createTempDirectory("wcloud-spill").toFile();
+            directory.deleteOnExit();
+        }
+        File run = new File(directory, "run-" + RUNS.size() + ".wcfs");
+        run.deleteOnExit();
+        FrequencySnapshot.export(TABLE.entrySet(), run);
+        RUNS.add(run);
+        TABLE.clear();
+    }
+
+    /**
+     * Returns whether any counts have been spilled to disk. If not, the in-memory table holds the complete counts and can be read like any map.
+     *
+     * @return True, if at least one run was written, or else, false.
+     */
+    // O(1) simple getter
+    public boolean hasSpilled() {
+        return !RUNS.isEmpty();
+    }
+
+    /**
+     * <p>Returns the <code>limit</code> most frequent words with their exact counts, sorted by count in descending order. The words still in memory are spilled as a last run first, and all runs are then read in one streaming k-way merge; a min-heap of <code>limit</code> entries keeps the best words seen so far.</p>
+     * <p>This method runs in <b>O(n log r + n log k)</b> time with n being the total number of entries in all runs, r being the number of runs and k being <code>limit</code>.</p>
+     *
+     * @param limit The maximum number of words returned.
+     * @return The top words and their counts, or <code>null</code> if no word was counted.
+     * @throws IOException If a run cannot be written or read.
+     */
+    // O(n log r + n log k) see JavaDocs
+    public List<Map.Entry<String, Integer>> top(int limit) throws IOException {
+        LOCK.writeLock().lock();
+        try {
+            if (!TABLE.isEmpty()) writeRun();
+            List<FrequencySnapshot.Cursor> cursors = new ArrayList<>();
+            for (File run : RUNS) cursors.add(FrequencySnapshot.open(run));
+            List<Map.Entry<String, Integer>> list;
+            try {
+                list = Tabulators.top(FrequencySnapshot.mergedEntries(cursors), limit);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return list.isEmpty() ? null : list;
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    /**
+     * <p>Adds every count in this table to <code>target</code>. If anything has been spilled, the words still in memory are spilled as a last run first, and all runs are streamed into <code>target</code> in one k-way merge, so the table is never held in memory as a whole.</p>
+     * <p>This method runs in <b>O(n log r)</b> time with n being the total number of entries in all runs and r being the number of runs.</p>
+     *
+     * @param target The map that the counts are added to.
+     * @throws IOException If a run cannot be written or read.
+     */
+    // O(n log r) see JavaDocs
+    public void mergeInto(Map<String, Integer> target) throws IOException {
+        LOCK.writeLock().lock();
+        try {
+            if (RUNS.isEmpty()) {
+                TABLE.forEach((word, count) -> target.merge(word, count, Integer::sum));
+                return;
+            }
+            if (!TABLE.isEmpty()) writeRun();
+            List<FrequencySnapshot.Cursor> cursors = new ArrayList<>();
+            for (File run : RUNS) cursors.add(FrequencySnapshot.open(run));
+            Iterator<Map.Entry<String, Integer>> entries = FrequencySnapshot.mergedEntries(cursors);
+            try {
+                while (entries.hasNext()) {
+                    Map.Entry<String, Integer> entry = entries.next();
+                    target.merge(entry.getKey(), entry.getValue(), Integer::sum);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    /**
+     * <p>Writes the complete, merged frequency table to a snapshot file by merging all runs, so that it can be exported although it never fits in memory at once.</p>
+     * <p>This method runs in <b>O(n log r)</b> time, see <code>FrequencySnapshot.merge</code>.</p>
+     *
+     * @param file The snapshot file to be written.
+     * @throws IOException If a run cannot be read or the file cannot be written.
+     */
+    // O(n log r) see JavaDocs
+    public void export(File file) throws IOException {
+        LOCK.writeLock().lock();
+        try {
+            if (!TABLE.isEmpty()) writeRun();
+            FrequencySnapshot.merge(RUNS, file);
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Empties the in-memory table and deletes all runs.
+     */
+    // O(r) with r being the number of runs
+    @Override
+    public void clear() {
+        LOCK.writeLock().lock();
+        try {
+            TABLE.clear();
+            for (File run : RUNS) run.delete(); // A run that is still mapped on some platforms is deleted on exit instead.
+            RUNS.clear();
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    // O(1) the number of entries in memory; spilled entries are not counted
+    @Override
+    public int size() {
+        return TABLE.size();
+    }
+
+    // O(1) no loops here
+    @Override
+    public boolean isEmpty() {
+        return TABLE.isEmpty() && RUNS.isEmpty();
+    }
+
+    /**
+     * Returns the entries of the in-memory table. Before anything has been spilled, these are the complete counts; afterwards, use <code>top</code> or <code>export</code>.
+     *
+     * @return The entries in memory.
+     */
+    // O(1) a view of the in-memory table
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+        return TABLE.entrySet();
+    }
+}
@@ -0,0 +1,35 @@
+package ie.gmit.dip;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * <p>A <code>Runnable</code> used to read a text from the standard input stream line by line and token by token, count the occurrences of each token, and store the frequency table in a <code>Map</code>. This lets the app sit at the end of a Unix pipeline, such as <code>grep ERROR app.log | java ie.gmit.dip.Runner -</code>, and start counting before the upstream command has finished, without writing its output to disk first.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class StdinFrequencyTabulator extends FrequencyTabulator<InputStream> {
+    /**
+     * <p>Returns a <code>BufferedReader</code> with a large buffer that reads the standard input stream as UTF-8 text.</p>
+     *
+     * @param source The standard input stream.
+     * @return A <code>BufferedReader</code> for the stream.
+     */
+    // O(1) no loops here
+    public BufferedReader read(InputStream source) {
+        return new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE);
+    }
+
+    // O(1) no loops here
+    public String toString() {
+        return "-"; // There is only one standard input, so it can only be added once.
+    }
+
+    public StdinFrequencyTabulator(Map<String, Integer> frequencyTable) {
+        super(System.in, frequencyTable);
+    }
+}
@@ -12,8 +12,30 @@ public enum Strings {
             hlBlue("*                                                 *") + "\n" +
             hlBlue("***************************************************") + "\n"),
     RUNNER_SHUTDOWN("Shutting down!"),
+    RUNNER_CLEAR_CONSOLE("\033[H\033[2J"),
+    RUNNER_TIME_TO_FIRST_RENDER("Time to first render: %s ms since the JVM started, %s ms in the app."),
+    RUNNER_USAGE("Usage: java ie.gmit.dip.Runner [options] source...\n\n"
+            + "Sources:\n  PATH                      a text file\n  http://... https://...    a web page\n"
+            + "  -                         standard input\n  pipe:PATH                 a named pipe\n"
+            + "  tcp://HOST:PORT           a TCP server to read from\n  tcp://:PORT               a local port to accept one connection on\n\n"
+            + "Options:\n  -o, --output PATH         the output image (default ./wcloud.png)\n"
+            + "  --list PATH               a text file listing one file path or URL per line\n"
+            + "  --min-word-length N       --max-words 1-100   --size WIDTHxHEIGHT, each from 300 to 3000\n"
+            + "  --phrase-length N         --normalization none|stem|lemmatize\n"
+            + "  --scoring raw|source_weighted|tf_idf\n"
+            + "  --dedup off|one_pass|two_pass  leave out near-duplicate sources after or before counting them\n"
+            + "  --watch                   keep running and render again whenever a file or URL changes\n"
+            + "  --animate                 write an animated GIF with one frame per source, in order\n"
+            + "  --mask PATH               place words only inside the shape of a mask image\n"
+            + "  --profile                 report size, tokens, vocabulary and throughput per source instead of rendering\n"
+            + "  --memory-budget MB        spill the frequency table to temporary files beyond this size\n"
+            + "  --timeout SECONDS         the time limit per source, keeping the words counted until then\n"
+            + "  --timing                  print the time to the first render, including JVM start-up\n\n"
+            + "Without arguments, the interactive menu is started."),
     IO_WRITING_IMAGE_FILE_EXISTS_OVERWRITE(cYellow("Warning: A file of that name already exists in the same directory.\nOverwrite the existing file? Type \"y\" or \"yes\". Press Enter to cancel.")),
     IO_WRITING_IMAGE_SUCCESS(cGreen("Image written to output path.")),
+    IO_WRITING_VARIANT_SUCCESS(cGreen("Image variant %s written to output path.")),
+    IO_WRITING_IMAGE_FROM_CACHE(cGreen("Identical image found in cache and copied to output path.")),
     IO_WRITING_IMAGE_ERROR(cRed("Error writing image to output path.")),
     IO_INPUT_NUMBER("\nPlease enter a number from %s to %s.%n"),
     IO_INPUT_CURSOR(" >> "),
@@ -23,7 +45,27 @@ public enum Strings {
     IO_INPUT_IMAGE_HEIGHT("\n(Image height)"),
     IO_INPUT_IMAGE_WIDTH("\n(Image width)"),
     IO_INPUT_MIN_WORD_LENGTH("\n(Minimum word length)"),
+    IO_INPUT_WORKERS("\n(Number of worker processes, 1 to tabulate in this process)"),
+    IO_INPUT_VARIANT_FORMAT("\n(Image format: 1 = PNG, 2 = JPEG, 3 = BMP)"),
+    IO_INPUT_HTTP_CACHE_SIZE("\n(HTTP cache size in MB)"),
+    IO_INPUT_PHRASE_LENGTH("\n(Words per phrase, 1 to count single words)"),
+    IO_INPUT_NORMALIZATION("\n(Word normalization: 1 = none, 2 = Porter stemming, 3 = dictionary lemmatization from ./lemmas.txt)"),
+    IO_INPUT_SCORING("\n(Scoring: 1 = raw counts, 2 = equal weight per source, 3 = TF-IDF)"),
+    IO_INPUT_DEDUPLICATION("\n(Near-duplicate sources: 1 = keep all, 2 = leave out after counting, 3 = leave out before counting files and URLs)"),
+    IO_INPUT_POLL_SECONDS("\n(Seconds between two checks of a URL)"),
+    IO_INPUT_WATCH_STOP("\nWatching for changes. Press Enter to stop."),
+    IO_INPUT_MEMORY_BUDGET("\n(Memory budget of the frequency table in MB, 0 to keep it in memory)"),
+    IO_INPUT_SOURCE_TIMEOUT("\n(Time limit per source in seconds, 0 for no limit)"),
+    IO_INPUT_WINDOW_MINUTES("\n(Time window in minutes)"),
+    IO_INPUT_WINDOW_REFRESH("\n(Seconds between two renders)"),
+    IO_INPUT_WINDOW_STOP("\nRendering the word cloud of the last %s minutes every %s seconds. Press Enter to stop.%n"),
     IO_INPUT_MAX_WORDS("\n(Maximum number of words)"),
+    IO_INPUT_MASK_PATH("\nPlease enter the path of a mask image; words are placed on its opaque pixels, or on its dark pixels if it has no transparency. (Press Enter to remove the mask.)"),
+    IO_INPUT_SNAPSHOT_PATH("\nPlease enter the path of a frequency table snapshot. (Press Enter to cancel.)"),
+    IO_INPUT_SNAPSHOT_EXPORT_PATH("\nPlease enter the path of a new snapshot file. (Press Enter to cancel.)"),
+    IO_INPUT_SOURCE_LIST_PATH("\nPlease enter the path of a text file listing one file path or URL per line. (Press Enter to cancel.)"),
+    IO_INPUT_PIPE_PATH("\nPlease enter the path of an existing named pipe. (Press Enter to cancel.)"),
+    IO_INPUT_SOCKET("\nPlease enter host:port to connect to, or :port to listen on. (Press Enter to cancel.)"),
     IO_INPUT_URL("\nPlease enter a valid existing URL. (Press Enter to cancel.)"),
     IO_INPUT_URL_PLEASE_WAIT("Contacting %s...%n"),
     IO_VALIDATION_FAILED("Invalid input."),
@@ -33,25 +75,97 @@ public enum Strings {
             "  " + cYellow(" MAIN MENU ") + "\n\n  1) Add local file\n" + "  2) Add URL\n"
                     + "  3) Empty file/URL list\n\n  4) Re-import stop words\n\n  5) Change min. word length (%s)\n"
                     + "  6) Change max. number of words (%s)\n  7) Change image size (%s x %s)\n\n  8) Change output directory\n"
-                    + "  9) Change image file name\n  10) Render word cloud\n\n  11) Quit%n"
+                    + "  9) Change image file name\n  10) Render word cloud\n\n  11) Advanced options\n\n  12) Quit%n"
     ),
+    MENU_ADVANCED(
+            "  " + cYellow(" ADVANCED OPTIONS ") + "\n\n  1) Back to main menu\n\n"
+                    + "  2) Toggle off-heap frequency table (%s)\n  3) Change number of worker processes (%s)\n\n"
+                    + "  4) Add frequency table snapshot\n  5) Export last frequency table as snapshot\n\n"
+                    + "  6) Add output variant\n  7) Remove all output variants\n  8) Render all output variants (%s)\n\n"
+                    + "  9) Toggle deterministic rendering and image cache (%s)\n  10) Change HTTP cache size (%s MB)\n\n"
+                    + "  11) Import files/URLs from a list file\n\n"
+                    + "  12) Change phrase length (%s)\n  13) Change word normalization (%s)\n\n"
+                    + "  14) Render time-windowed word cloud from a growing file\n  15) Change time window (%s min, refreshed every %s s)\n\n"
+                    + "  16) Add named pipe\n  17) Add TCP socket\n\n"
+                    + "  18) Change time limit per source (%s s, 0 = none)\n  19) Change scoring across sources (%s)\n"
+                    + "  20) Change memory budget of the frequency table (%s MB, 0 = none)\n"
+                    + "  21) Change removal of near-duplicate sources (%s)\n\n"
+                    + "  22) Watch files/URLs and render again on changes\n  23) Change URL polling interval (%s s)\n\n"
+                    + "  24) Render animated word cloud, one frame per file/URL in list order (GIF)\n"
+                    + "  25) Change mask image (%s)\n\n"
+                    + "  26) Profile files/URLs without rendering%n"
+    ),
+    ANIMATION_WRITTEN(cGreen("Animation of %s frames written to output path (%s%% of the frame area encoded).")),
+    BATCH_FAILURE_INVALID(cRed("Invalid:")),
+    BATCH_FAILURE_TIMEOUT(cRed("Timed out:")),
+    BATCH_FAILURE_CANCELLED(cRed("Cancelled:")),
+    PARSER_BATCH_IMPORT_SUMMARY(cGreen("%s sources added to parser list, %s duplicates skipped, %s failed.")),
+    PARSER_BATCH_IMPORT_MORE_FAILURES(cRed("... and %s more failures.")),
+    PARSER_CANCELLED(cYellow("Parsing cancelled; the words counted so far are kept.")),
+    PARSER_PROGRESS("Parsing: %s/%s sources done, %.1f MB read, %s tokens, about %s s left"),
+    PARSER_PROGRESS_CANCEL_HINT(cYellow("Press Enter to cancel parsing and render the words counted so far.")),
+    PARSER_SOURCE_TIMEOUT(cYellow("Warning: %s exceeded the time limit; the words counted so far are kept.")),
     PARSER_ERROR_READING_SOURCE(cRed("Error reading source.")),
     PARSER_JOB_LIST_ADD_SUCCESS_FILE(cGreen("File added to parser list.")),
     PARSER_JOB_LIST_ADD_SUCCESS_URL(cGreen("URL added to parser list.")),
+    PARSER_JOB_LIST_ADD_SUCCESS_STREAM(cGreen("Stream added to parser list.")),
+    PARSER_JOB_LIST_ADD_SUCCESS_SNAPSHOT(cGreen("Snapshot added to parser list.")),
     PARSER_JOB_LIST_EMPTY_NO_WORDS(cYellow("Please add at least one file or URL before rendering.")),
     PARSER_JOB_LIST_LABEL(cGreen("\nFiles/URLs to be parsed:")),
     PARSER_JOB_LIST_ERROR_DUPE(cRed("Error: File/URL already in list.")),
+    PARSER_WORKER_FAILED(cYellow("Warning: A worker process failed (attempt %s).")),
+    PARSER_WORKER_MISSING_LEMMAS(cRed("Worker: lemmatization was requested, but no lemmas were received.")),
+    PARSER_WORKER_MISSING_SOURCE(cRed("Worker: the file %s cannot be read on this machine.")),
+    PARSER_WORKER_FALLBACK(cYellow("Warning: A partition was tabulated locally after its worker failed repeatedly.")),
     PARSER_JOB_LIST_RESET(cGreen("The list of files/URLs to be parsed has been emptied.")),
-    PARSER_PATTERN_HTML("(<.*?>|&lt;.+&gt;|&\\w+;)"),
-    PARSER_PATTERN_CONTRACTIONS("((n't|'s|'d|'ve|'re|'ll|'m)\\b)"),
-    PARSER_PATTERN_ARTEFACTS("([\\d\\W_]+)"),
+    PARSER_PATTERN_TIMESTAMP("\\s*(?:\\[\\s*)?(?:(\\d{4}-\\d{2}-\\d{2})[T ](\\d{2}:\\d{2}:\\d{2}(?:\\.\\d{1,9})?)(Z|[+-]\\d{2}:?\\d{2})?|(\\d{13}|\\d{10})(?!\\d))(?:\\s*\\])?"),
+    PARSER_NEAR_DUPLICATE(cYellow("Skipped %s: a near-duplicate of %s.")),
+    PARSER_SPILL_ERROR(cYellow("Warning: The frequency table could not be spilled to temporary files; counting continues in memory.")),
+    PARSER_SPILL_MERGE_ERROR(cRed("Error reading the spilled frequency table back from its temporary files.")),
+    PARSER_SNAPSHOT_EXPORT_ERROR(cRed("Error writing the snapshot file.")),
+    PARSER_SNAPSHOT_EXPORT_SUCCESS(cGreen("Frequency table exported as snapshot.")),
+    PARSER_SNAPSHOT_NOT_RAW(cYellow("Only raw counts can be exported as a snapshot. Please set the scoring to raw and render again.")),
+    PARSER_SNAPSHOT_NOTHING_TO_EXPORT(cYellow("Please render a word cloud before exporting its frequency table.")),
+    PARSER_LEMMAS_IMPORT_ERROR(cRed("Warning: Lemmas could not be imported from lemmas.txt. Words will not be normalized.")),
+    PARSER_LEMMAS_IMPORT_PATH("./lemmas.txt"),
+    PARSER_LANGUAGE_STOP_WORDS_DIR("./stopwords"),
+    PARSER_LANGUAGE_STOP_WORDS_IMPORT_ERROR(cRed("Warning: Stop words could not be imported from the stopwords directory.")),
+    PARSER_LANGUAGE_STOP_WORDS_IMPORT_SUCCESS(cGreen("Stop words for %s imported from the stopwords directory.")),
     PARSER_STOP_WORDS_IMPORT_ERROR(cRed("Warning: Stop words could not be imported from ignorewords.txt.")),
     PARSER_STOP_WORDS_IMPORT_PATH("./ignorewords.txt"),
     PARSER_STOP_WORDS_IMPORT_SUCCESS(cGreen("Stop words successfully imported from ignorewords.txt.")),
+    WATCH_ERROR(cRed("Error: The files could not be watched.")),
+    WATCH_NOTHING_TO_WATCH(cYellow("Please add at least one file or URL to watch.")),
+    WATCH_STARTED(cGreen("Watching %s sources for changes (URLs checked every %s s).")),
+    WATCH_STOPPED(cGreen("Watching stopped.")),
+    WINDOW_STARTED(cGreen("Windowed word cloud started (%s min window, refreshed every %s s).")),
+    WINDOW_STOPPED(cGreen("Windowed word cloud stopped.")),
+    PROFILE_SOURCE("%s: %.1f MB, %s tokens, about %s distinct, %.0f%% stop words, %.1f MB/s"),
+    PROFILE_TOTAL(cGreen("Profiled %s sources: %.1f MB, %s tokens, about %s distinct, %.1f MB/s in total.")),
+    PROFILE_TABLE_ESTIMATE(cGreen("The frequency table of all sources would take about %s MB of memory.")),
+    PROFILE_SKIPPED(cYellow("%s streams and snapshots were not profiled, as streams can only be read once.")),
+    RENDER_MASK_ERROR(cRed("Error: The mask image could not be read.")),
+    RENDER_VARIANTS_EMPTY(cYellow("Please add at least one output variant before rendering variants.")),
     RENDER_WORD_LIST_EMPTY(cRed("Error: No matching words were found. Cannot render image.")),
+    VAR_SET_MASK(cGreen("Mask image set.")),
+    VAR_SET_MASK_REMOVED(cGreen("Mask image removed; words fill the whole image.")),
+    VAR_SET_DETERMINISTIC(cGreen("Deterministic rendering set.")),
+    VAR_SET_FREQUENCY_TABLE(cGreen("Frequency table backend set.")),
+    VAR_SET_VARIANT_ADDED(cGreen("Output variant added.")),
+    VAR_SET_VARIANTS_CLEARED(cGreen("All output variants have been removed.")),
+    VAR_SET_HTTP_CACHE_SIZE(cGreen("HTTP cache size set.")),
+    VAR_SET_DEDUPLICATION(cGreen("Removal of near-duplicate sources set.")),
+    VAR_SET_POLL_INTERVAL(cGreen("URL polling interval set.")),
+    VAR_SET_MEMORY_BUDGET(cGreen("Memory budget set.")),
+    VAR_SET_SCORING(cGreen("Scoring set.")),
+    VAR_SET_SOURCE_TIMEOUT(cGreen("Time limit per source set.")),
+    VAR_SET_WINDOW(cGreen("Time window set.")),
+    VAR_SET_NORMALIZATION(cGreen("Word normalization set.")),
+    VAR_SET_PHRASE_LENGTH(cGreen("Phrase length set.")),
     VAR_SET_IMAGE_SIZE(cGreen("Output image size set.")),
     VAR_SET_MIN_WORD_LENGTH(cGreen("Minimum word length set.")),
-    VAR_SET_MAX_WORDS(cGreen("Maximum number of words set."));
+    VAR_SET_MAX_WORDS(cGreen("Maximum number of words set.")),
+    VAR_SET_WORKERS(cGreen("Number of worker processes set."));
 
 
     private final String string;
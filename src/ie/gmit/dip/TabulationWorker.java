@@ -0,0 +1,85 @@
+package ie.gmit.dip;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * <p>The entry point of a worker process started by <code>DistributedTabulation</code>. A worker reads a list of sources from its standard input, tabulates them with its own <code>Tabulators</code> and writes the resulting partial frequency table to its standard output in a compact binary format.</p>
+ * <p>Each input line has the form <code>file &lt;path&gt;</code> or <code>url &lt;url&gt;</code>, preceded by the coordinator's stop words and lemmas, see <code>DistributedTabulation.workerSetup</code>; the worker reads no stop words or lemmas of its own. The partial table is written in the <code>FrequencySnapshot</code> format.</p>
+ * <p>A worker that cannot tabulate exactly like its coordinator, because it received no lemmas for lemmatization or cannot read a file source, exits with a non-zero code before counting anything, so that the coordinator retries the partition or tabulates it itself.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class TabulationWorker {
+    /**
+     * Applies the coordinator's settings, stop words and lemmas, tabulates every source listed on standard input, and writes the partial table to standard output.
+     *
+     * @param args Settings in the form written by <code>DistributedTabulation.workerArguments</code>.
+     * @throws IOException If the partial table cannot be written; the coordinator then retries the partition.
+     */
+    // O(n) see Tabulators.execute
+    public static void main(String[] args) throws IOException {
+        Runner.hideProgress(); // Standard error is shared with the coordinator and the other workers.
+        Normalization normalization = Normalization.NONE;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--min-word-length")) Tabulators.setMinWordLength(Integer.parseInt(args[i + 1]));
+            else if (args[i].equals("--phrase-length")) Tabulators.setPhraseLength(Integer.parseInt(args[i + 1]));
+            else if (args[i].equals("--timeout")) Tabulators.setSourceTimeoutSeconds(Integer.parseInt(args[i + 1]));
+            else if (args[i].equals("--normalization")) normalization = Normalization.valueOf(args[i + 1]);
+        }
+
+        Set<String> stopWords = new HashSet<>();
+        Map<String, Set<String>> languageStopWords = new TreeMap<>();
+        List<String[]> lemmas = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        BufferedReader tasks = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+        String task;
+        while ((task = tasks.readLine()) != null) {
+            String[] columns = task.split(" ", 3);
+            if (task.startsWith("stop ")) {
+                stopWords.add(columns[1]);
+            } else if (task.startsWith("language ") && columns.length == 3) {
+                languageStopWords.computeIfAbsent(columns[1], language -> new HashSet<>()).add(columns[2]);
+            } else if (task.startsWith("lemma ") && columns.length == 3) {
+                lemmas.add(new String[]{columns[1], columns[2]});
+            } else if (task.startsWith("file ")) {
+                File file = new File(task.substring(5));
+                if (!file.isFile() || !file.canRead()) fail(String.format(Strings.PARSER_WORKER_MISSING_SOURCE.get(), file));
+                files.add(file);
+            } else if (task.startsWith("url ")) {
+                try {
+                    Tabulators.add(new URL(task.substring(4)));
+                } catch (MalformedURLException ignored) {
+                } // The coordinator only sends URLs that have already been validated.
+            }
+        }
+
+        Tabulators.useStopWords(stopWords, languageStopWords);
+        if (normalization == Normalization.LEMMATIZE) {
+            if (lemmas.isEmpty()) fail(Strings.PARSER_WORKER_MISSING_LEMMAS.get());
+            Tabulators.useNormalization(normalization, new DictionaryLemmatizer(lemmas));
+        } else {
+            Tabulators.setNormalization(normalization);
+        }
+        for (File file : files) Tabulators.add(file);
+        List<Map.Entry<String, Integer>> list = Tabulators.execute();
+        FrequencySnapshot.write(list == null ? Collections.emptyList() : list, System.out);
+    }
+
+    /**
+     * Reports why the worker cannot tabulate like its coordinator on the inherited error stream and exits with a non-zero code.
+     *
+     * @param reason The reason.
+     */
+    // O(1) no loops here
+    private static void fail(String reason) {
+        System.err.println(reason);
+        System.exit(1);
+    }
+
+    private TabulationWorker() {
+    }
+}
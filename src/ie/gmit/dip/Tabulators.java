@@ -3,13 +3,24 @@ package ie.gmit.dip;
 import javafx.scene.control.Tab;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * <p>A class that collects <code>FrequencyTabulator</code> objects in a <code>List</code>, then executes them simultaneously and stores the resulting frequency table in a thread-safe <code>Map</code>. Its <code>execute</code> method returns a <code>List</code> of words <b>sorted by frequency in descending order</b>.</p>
@@ -19,25 +30,36 @@ import java.util.concurrent.Executors;
  */
 public final class Tabulators {
     private static List<FrequencyTabulator<?>> tabulators = new ArrayList<>();
+    private static Set<String> sourceNames = new HashSet<>();
     private static final Map<String, Integer> FREQUENCY_TABLE = new ConcurrentHashMap<>();
     private static Set<String> stopWords = new TreeSet<>();
+    private static Map<String, Set<String>> languageStopWords = new TreeMap<>();
     private static int minWordLength = 4;
+    private static int phraseLength = 1;
+    private static Normalization normalization = Normalization.NONE;
+    private static TokenNormalizer normalizer = null;
+    private static boolean isOffHeap = false;
+    private static int sourceTimeoutSeconds = 0;
+    private static Scoring scoring = Scoring.RAW;
+    private static Deduplication deduplication = Deduplication.OFF;
+    private static int memoryBudgetMegabytes = 0;
+    private static SpillingFrequencyTable spilledTable = null;
+    private static OffHeapFrequencyTable offHeapTable = null;
+    private static final long PROGRESS_INTERVAL_MILLIS = 500;
+    private static List<Map.Entry<String, Integer>> lastResult = null;
+    private static Scoring lastScoring = Scoring.RAW; // The scoring lastResult was made with
 
     /**
-     * <p>Checks if a <code>FrequencyTabulator</code> already exists in this class's object list.</p>
-     * <p>This method runs in <b>linear time O(n)</b>.</p>
+     * <p>Adds a <code>FrequencyTabulator</code> to this class's object list, unless an equal object is already in the list. Equality is based on <code>toString</code>, as in <code>FrequencyTabulator.equals</code>, and is checked against a <code>HashSet</code> of the names in the list, so that bulk imports of many sources stay fast.</p>
+     * <p>This method runs in <b>constant time O(1)</b>.</p>
      *
      * @param ftNew The <code>FrequencyTabulator</code> in question.
-     * @return True, if the new object is unique, or false, if an equal object is found in the list.
+     * @return True, if the new object was unique and has been added, or false, if an equal object is found in the list.
      */
-    // O(n) due to the loop -> TABULATORS.size()
-    private static boolean isUnique(FrequencyTabulator<?> ftNew) {
-        for (FrequencyTabulator<?> ft : tabulators) {
-            if (ftNew.equals(ft)) {
-                Runner.log(Strings.PARSER_JOB_LIST_ERROR_DUPE.get());
-                return false;
-            }
-        }
+    // O(1) hash set lookup instead of a loop over the list
+    private static boolean addIfUnique(FrequencyTabulator<?> ftNew) {
+        if (!sourceNames.add(ftNew.toString())) return false;
+        tabulators.add(ftNew);
         return true;
     }
 
@@ -62,6 +84,192 @@ public final class Tabulators {
         Runner.log(Strings.VAR_SET_MIN_WORD_LENGTH.get());
     }
 
+    /**
+     * Returns the number of consecutive words counted as one phrase; 1 means that single words are counted.
+     *
+     * @return The phrase length, from 1 to 3.
+     */
+    // O(1) simple getter/setter
+    public static int getPhraseLength() {
+        return phraseLength;
+    }
+
+    /**
+     * Sets the number of consecutive words counted as one phrase: 1 for single words, 2 for bigrams such as "machine learning", or 3 for trigrams.
+     *
+     * @param length The new phrase length, from 1 to 3.
+     */
+    // O(1) simple getter/setter
+    public static void setPhraseLength(int length) {
+        phraseLength = length;
+        Runner.log(Strings.VAR_SET_PHRASE_LENGTH.get());
+    }
+
+    /**
+     * Returns the way tokens are reduced to a base form before they are counted.
+     *
+     * @return The current normalization.
+     */
+    // O(1) simple getter/setter
+    public static Normalization getNormalization() {
+        return normalization;
+    }
+
+    /**
+     * <p>Sets the way tokens are reduced to a base form before they are counted, so that "run", "runs" and "running" are counted as one word. The normalizer is built once here and shared by all tabulators: stemming is memoized per thread, and lemmatization loads "./lemmas.txt" into an immutable table.</p>
+     * <p>If the lemma list cannot be read, normalization is switched off.</p>
+     *
+     * @param mode The new normalization.
+     */
+    // O(n) with n being the size of the lemma list, O(1) otherwise
+    public static void setNormalization(Normalization mode) {
+        switch (mode) {
+            case STEM:
+                normalizer = new MemoizingNormalizer(PorterStemmer::new);
+                break;
+            case LEMMATIZE:
+                try {
+                    normalizer = new DictionaryLemmatizer(new File(Strings.PARSER_LEMMAS_IMPORT_PATH.get()));
+                } catch (IOException e) {
+                    Runner.log(Strings.PARSER_LEMMAS_IMPORT_ERROR.get());
+                    mode = Normalization.NONE;
+                    normalizer = null;
+                }
+                break;
+            default:
+                normalizer = null;
+        }
+        normalization = mode;
+        Runner.log(Strings.VAR_SET_NORMALIZATION.get());
+    }
+
+    /**
+     * Sets a normalization together with a normalizer that has already been built, such as a lemmatizer made from the lemmas a worker process received from its coordinator.
+     *
+     * @param mode       The new normalization.
+     * @param normalizer The normalizer of that mode, or <code>null</code> for <code>NONE</code>.
+     */
+    // O(1) simple getter/setter
+    static void useNormalization(Normalization mode, TokenNormalizer normalizer) {
+        Tabulators.normalization = mode;
+        Tabulators.normalizer = normalizer;
+    }
+
+    /**
+     * Returns the normalizer applied to every token that passes the length and stop word filters.
+     *
+     * @return The normalizer, or <code>null</code> if tokens are counted as they are.
+     */
+    // O(1) simple getter/setter
+    public static TokenNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Returns the way words are ranked across sources.
+     *
+     * @return The current scoring.
+     */
+    // O(1) simple getter/setter
+    public static Scoring getScoring() {
+        return scoring;
+    }
+
+    /**
+     * Sets the way words are ranked across sources: by their pooled counts, by their share of each source so that every source weighs the same however long it is, or by TF-IDF, which also favours words that are typical of a few sources over words found in all of them.
+     *
+     * @param mode The new scoring.
+     */
+    // O(1) simple getter/setter
+    public static void setScoring(Scoring mode) {
+        scoring = mode;
+        Runner.log(Strings.VAR_SET_SCORING.get());
+    }
+
+    /**
+     * Returns the way near-duplicate sources are left out of the counts.
+     *
+     * @return The current deduplication.
+     */
+    // O(1) simple getter/setter
+    public static Deduplication getDeduplication() {
+        return deduplication;
+    }
+
+    /**
+     * Sets the way near-duplicate sources, such as mirrors or syndicated copies of a page, are left out of the counts: not at all, after each source has been counted into a table of its own, or before counting, by signing the sources in a first pass so that duplicates are never tabulated. Sources are compared by their MinHash signatures.
+     *
+     * @param mode The new deduplication.
+     */
+    // O(1) simple getter/setter
+    public static void setDeduplication(Deduplication mode) {
+        deduplication = mode;
+        Runner.log(Strings.VAR_SET_DEDUPLICATION.get());
+    }
+
+    /**
+     * Returns the time limit for reading a single source; 0 means no limit.
+     *
+     * @return The time limit in seconds.
+     */
+    // O(1) simple getter/setter
+    public static int getSourceTimeoutSeconds() {
+        return sourceTimeoutSeconds;
+    }
+
+    /**
+     * Sets the time limit for reading a single source. A source that takes longer stops being read, and the words counted up to then are kept.
+     *
+     * @param seconds The new time limit in seconds, or 0 for no limit.
+     */
+    // O(1) simple getter/setter
+    public static void setSourceTimeoutSeconds(int seconds) {
+        sourceTimeoutSeconds = seconds;
+        Runner.log(Strings.VAR_SET_SOURCE_TIMEOUT.get());
+    }
+
+    /**
+     * Returns the memory budget of the frequency table; 0 means no budget.
+     *
+     * @return The memory budget in megabytes.
+     */
+    // O(1) simple getter/setter
+    public static int getMemoryBudgetMegabytes() {
+        return memoryBudgetMegabytes;
+    }
+
+    /**
+     * Sets the memory budget of the frequency table. Once the table outgrows the budget, its counts are spilled to temporary files as sorted runs and merged when tabulation ends, so the result is exact however large the vocabulary is.
+     *
+     * @param megabytes The new budget in megabytes, or 0 to keep the whole table in memory.
+     */
+    // O(1) simple getter/setter
+    public static void setMemoryBudgetMegabytes(int megabytes) {
+        memoryBudgetMegabytes = megabytes;
+        Runner.log(Strings.VAR_SET_MEMORY_BUDGET.get());
+    }
+
+    /**
+     * Returns whether the frequency table is kept off the JVM heap during execution.
+     *
+     * @return True, if an <code>OffHeapFrequencyTable</code> is used, or else, false.
+     */
+    // O(1) simple getter/setter
+    public static boolean isOffHeap() {
+        return isOffHeap;
+    }
+
+    /**
+     * Chooses the frequency table backend used by <code>execute</code>: an <code>OffHeapFrequencyTable</code> keeps the heap small for very large vocabularies, the default <code>ConcurrentHashMap</code> is faster for small ones.
+     *
+     * @param offHeap True to count off-heap, false to count on the heap.
+     */
+    // O(1) simple getter/setter
+    public static void setOffHeap(boolean offHeap) {
+        isOffHeap = offHeap;
+        Runner.log(Strings.VAR_SET_FREQUENCY_TABLE.get());
+    }
+
     /**
      * Returns the <code>TreeSet</code> of stop words that are discarded by the parsing algorithm.
      *
@@ -72,6 +280,16 @@ public final class Tabulators {
         return new TreeSet<>(stopWords);
     }
 
+    /**
+     * Returns the buffered <code>FrequencyTabulator</code>s, e.g. so that <code>WatchedTabulation</code> can tabulate them one by one.
+     *
+     * @return An unmodifiable copy of the list, in the order the sources were added.
+     */
+    // O(n) copies the list
+    public static List<FrequencyTabulator<?>> getTabulators() {
+        return Collections.unmodifiableList(new ArrayList<>(tabulators));
+    }
+
     /**
      * <p>Returns a user-friendly list of currently buffered <code>FrequencyTabulator</code>s to be displayed in the application's menu.</p>
      * <p>This method runs in <b>linear time O(n)</b>.</p>
@@ -90,24 +308,16 @@ public final class Tabulators {
     }
 
     /**
-     * <p>Obtains a <code>TreeSet</code> of stop words by mapping the content of the "ignorewords" text file, copying the key set, and discarding the frequency table.</p>
-     * <p>To avoid having to call this method every time <code>minWordLength</code> is changed, it temporarily assigns <code>minWordLength</code> a value of 1.</p>
+     * <p>Obtains a <code>TreeSet</code> of stop words by tokenizing the content of the "ignorewords" text file, and one set of stop words per language from the text files in the "stopwords" directory, which are named after their language, such as "./stopwords/de.txt".</p>
+     * <p>The files are tokenized with the same <code>UnicodeTokenizer</code> as the sources, so that stop words are matched exactly as they appear in the token stream, but they are read directly rather than through a <code>FrequencyTabulator</code>, so that the current stop words, length and normalization settings do not filter them.</p>
      * <p>This method runs in <b>linear time O(n)</b>.</p>
      */
     // As per brief: You can assume that the file is available in the current directory and should refer to it as "./ignorewords.txt". So, I'm hard-coding this one. It won't work if the JAR is executed from any directory which doesn't have an ignorewords.txt!
-    // (Note: Granted, cloning the keys is yet another thing done in linear time, but that won't affect overall time complexity in a big way because even if we forego the tokenizer, we'll need to pre-process the words somehow (toLowerCase!); also, subtyping a dedicated parser for the sake of calling "Set.add" instead of "Map.put" would be weird.)
     public static void bufferStopWords() {
         try {
-            if (Files.isRegularFile(Paths.get(Strings.PARSER_STOP_WORDS_IMPORT_PATH.get()))) {
-                int temp = minWordLength;
-                minWordLength = 1;
-                FrequencyTabulator<File> ft = new FileFrequencyTabulator(new File(Strings.PARSER_STOP_WORDS_IMPORT_PATH.get()), FREQUENCY_TABLE);
-                Thread td = new Thread(ft);
-                td.start();
-                td.join();
-                stopWords = new TreeSet<>(FREQUENCY_TABLE.keySet());
-                FREQUENCY_TABLE.clear();
-                minWordLength = temp;
+            Path path = Paths.get(Strings.PARSER_STOP_WORDS_IMPORT_PATH.get());
+            if (Files.isRegularFile(path)) {
+                stopWords = new TreeSet<>(readStopWords(path));
                 Runner.log(Strings.PARSER_STOP_WORDS_IMPORT_SUCCESS.get());
             } else {
                 Runner.log(Strings.PARSER_STOP_WORDS_IMPORT_ERROR.get());
@@ -115,6 +325,100 @@ public final class Tabulators {
         } catch (Exception e) {
             Runner.log(Strings.PARSER_STOP_WORDS_IMPORT_ERROR.get());
         }
+
+        Map<String, Set<String>> languages = new TreeMap<>();
+        Path dir = Paths.get(Strings.PARSER_LANGUAGE_STOP_WORDS_DIR.get());
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.txt")) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    languages.put(name.substring(0, name.length() - 4), readStopWords(file));
+                }
+                Runner.log(String.format(Strings.PARSER_LANGUAGE_STOP_WORDS_IMPORT_SUCCESS.get(), languages.keySet()));
+            } catch (Exception e) {
+                Runner.log(Strings.PARSER_LANGUAGE_STOP_WORDS_IMPORT_ERROR.get());
+            }
+        }
+        languageStopWords = languages;
+    }
+
+    /**
+     * Sets the stop words without reading any files, such as those a worker process received from its coordinator.
+     *
+     * @param words     The stop words of "ignorewords.txt".
+     * @param languages The stop words of each language.
+     */
+    // O(1) simple getter/setter
+    static void useStopWords(Set<String> words, Map<String, Set<String>> languages) {
+        stopWords = new TreeSet<>(words);
+        languageStopWords = languages;
+    }
+
+    /**
+     * Returns the stop words of each language read from the "stopwords" directory.
+     *
+     * @return An unmodifiable map from each language to its stop words.
+     */
+    // O(1) simple getter/setter
+    static Map<String, Set<String>> getLanguageStopWords() {
+        return Collections.unmodifiableMap(languageStopWords);
+    }
+
+    // O(n) with n being the length of the file
+    private static Set<String> readStopWords(Path file) throws IOException {
+        Set<String> words = new HashSet<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            StringTokenizer tokenizer = UnicodeTokenizer.tokenize(line);
+            while (tokenizer.hasMoreTokens()) words.add(tokenizer.nextToken());
+        }
+        return words;
+    }
+
+    /**
+     * <p>Guesses the language of a source from a sample of its first tokens by counting how many of them are stop words of each language. Stop words are the most frequent words of any language, so even a few hundred tokens are usually enough to tell languages apart.</p>
+     * <p>This method runs in <b>linear time O(n * k)</b> with n being the size of the sample and k being the number of languages.</p>
+     *
+     * @param sample The first tokens of a source.
+     * @return The language whose stop words occur most often in the sample, or <code>null</code> if none occur more often than those of "ignorewords.txt".
+     */
+    // O(n * k) see JavaDocs
+    public static String detectLanguage(Collection<String> sample) {
+        Set<String> base = stopWords;
+        int best = 0;
+        for (String token : sample) if (base.contains(token)) best++;
+        String language = null;
+        for (Map.Entry<String, Set<String>> entry : languageStopWords.entrySet()) {
+            int hits = 0;
+            for (String token : sample) if (entry.getValue().contains(token)) hits++;
+            if (hits > best) {
+                best = hits;
+                language = entry.getKey();
+            }
+        }
+        return language;
+    }
+
+    /**
+     * Returns whether stop words for other languages have been loaded, in which case tabulators detect the language of each source.
+     *
+     * @return True, if at least one language file was read from the "stopwords" directory, or else, false.
+     */
+    // O(1) simple getter/setter
+    public static boolean hasLanguageStopWords() {
+        return !languageStopWords.isEmpty();
+    }
+
+    /**
+     * Returns the stop words of "ignorewords.txt" together with those of <code>language</code>.
+     *
+     * @param language A language returned by <code>detectLanguage</code>, or <code>null</code>.
+     * @return A new set of stop words; the same as <code>getStopWords()</code> if <code>language</code> is <code>null</code> or unknown.
+     */
+    // O(n) copies the sets
+    public static Set<String> getStopWords(String language) {
+        Set<String> words = getStopWords();
+        if (language != null && languageStopWords.containsKey(language)) words.addAll(languageStopWords.get(language));
+        return words;
     }
 
     /**
@@ -123,73 +427,475 @@ public final class Tabulators {
     // O(1) The implementations for .clear of ArrayLists/LinkedLists take O(n) so it's faster to just instantiate a new list.
     public static void clear() {
         tabulators = new ArrayList<>();
+        sourceNames = new HashSet<>();
         Runner.log(Strings.PARSER_JOB_LIST_RESET.get());
     }
 
     /**
      * Instantiates a <code>URLFrequencyTabulator</code> and checks if it is a duplicate; if it is not, adds it to the list.
-     * <p>This method runs in <b>linear time O(n)</b> because it calls <code>isUnique</code>.</p>
+     * <p>This method runs in <b>constant time O(1)</b> because it calls <code>addIfUnique</code>.</p>
      *
      * @param url The <code>URL</code> used to instantiate the new tabulator.
      */
-    // O(n) see JavaDocs
+    // O(1) see JavaDocs
     public static void add(URL url) {
         if (url != null) {
             URLFrequencyTabulator ft = new URLFrequencyTabulator(url, FREQUENCY_TABLE);
-            if (isUnique(ft)) {
-                tabulators.add(ft);
-                Runner.log(Strings.PARSER_JOB_LIST_ADD_SUCCESS_URL.get());
-            }
+            if (addIfUnique(ft)) Runner.log(Strings.PARSER_JOB_LIST_ADD_SUCCESS_URL.get());
+            else Runner.log(Strings.PARSER_JOB_LIST_ERROR_DUPE.get());
         }
     }
 
     /**
      * Instantiates a <code>FileFrequencyTabulator</code> and checks if it is a duplicate; if it is not, adds it to the list.
-     * <p>This method runs in <b>linear time O(n)</b> because it calls <code>isUnique</code>.</p>
+     * <p>This method runs in <b>constant time O(1)</b> because it calls <code>addIfUnique</code>.</p>
      *
      * @param file The <code>File</code> used to instantiate the new tabulator.
      */
-    // O(n) see JavaDocs
+    // O(1) see JavaDocs
     public static void add(File file) {
         if (file != null) {
             FileFrequencyTabulator ft = new FileFrequencyTabulator(file, FREQUENCY_TABLE);
-            if (isUnique(ft)) {
-                tabulators.add(ft);
-                Runner.log(Strings.PARSER_JOB_LIST_ADD_SUCCESS_FILE.get());
+            if (addIfUnique(ft)) Runner.log(Strings.PARSER_JOB_LIST_ADD_SUCCESS_FILE.get());
+            else Runner.log(Strings.PARSER_JOB_LIST_ERROR_DUPE.get());
+        }
+    }
+
+    /**
+     * Instantiates a <code>StdinFrequencyTabulator</code> and checks if it is a duplicate; if it is not, adds it to the list.
+     * <p>This method runs in <b>constant time O(1)</b> because it calls <code>addIfUnique</code>.</p>
+     */
+    // O(1) see JavaDocs
+    public static void addStdin() {
+        if (addIfUnique(new StdinFrequencyTabulator(FREQUENCY_TABLE))) Runner.log(Strings.PARSER_JOB_LIST_ADD_SUCCESS_STREAM.get());
+        else Runner.log(Strings.PARSER_JOB_LIST_ERROR_DUPE.get());
+    }
+
+    /**
+     * Instantiates a <code>PipeFrequencyTabulator</code> and checks if it is a duplicate; if it is not, adds it to the list.
+     * <p>This method runs in <b>constant time O(1)</b> because it calls <code>addIfUnique</code>.</p>
+     *
+     * @param pipe The named pipe used to instantiate the new tabulator.
+     */
+    // O(1) see JavaDocs
+    public static void addPipe(File pipe) {
+        if (pipe != null) {
+            if (addIfUnique(new PipeFrequencyTabulator(pipe, FREQUENCY_TABLE))) Runner.log(Strings.PARSER_JOB_LIST_ADD_SUCCESS_STREAM.get());
+            else Runner.log(Strings.PARSER_JOB_LIST_ERROR_DUPE.get());
+        }
+    }
+
+    /**
+     * Instantiates a <code>SocketFrequencyTabulator</code> and checks if it is a duplicate; if it is not, adds it to the list.
+     * <p>This method runs in <b>constant time O(1)</b> because it calls <code>addIfUnique</code>.</p>
+     *
+     * @param address The address to connect to, or an address without a host to listen on.
+     */
+    // O(1) see JavaDocs
+    public static void add(InetSocketAddress address) {
+        if (address != null) {
+            if (addIfUnique(new SocketFrequencyTabulator(address, FREQUENCY_TABLE))) Runner.log(Strings.PARSER_JOB_LIST_ADD_SUCCESS_STREAM.get());
+            else Runner.log(Strings.PARSER_JOB_LIST_ERROR_DUPE.get());
+        }
+    }
+
+    /**
+     * Instantiates a <code>SnapshotFrequencyTabulator</code> and checks if it is a duplicate; if it is not, adds it to the list.
+     * <p>This method runs in <b>constant time O(1)</b> because it calls <code>addIfUnique</code>.</p>
+     *
+     * @param snapshot The snapshot <code>File</code> used to instantiate the new tabulator.
+     */
+    // O(1) see JavaDocs
+    public static void addSnapshot(File snapshot) {
+        if (snapshot != null) {
+            SnapshotFrequencyTabulator ft = new SnapshotFrequencyTabulator(snapshot, FREQUENCY_TABLE);
+            if (addIfUnique(ft)) Runner.log(Strings.PARSER_JOB_LIST_ADD_SUCCESS_SNAPSHOT.get());
+            else Runner.log(Strings.PARSER_JOB_LIST_ERROR_DUPE.get());
+        }
+    }
+
+    /**
+     * <p>Reads a list of sources from a text file, one file path or URL per line, validates all of them simultaneously and adds every valid, unique source to the list. Blank lines and lines starting with "#" are ignored. A summary and the failed lines are logged.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of lines, disregarding validation, which is done by <code>FileBatchValidator</code> and <code>URLBatchValidator</code> on their own threads.</p>
+     *
+     * @param list A text file with one source per line.
+     */
+    // O(n) see JavaDocs
+    public static void importSources(File list) {
+        if (list == null) return;
+        List<String> files = new ArrayList<>();
+        List<String> urls = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(list.toPath(), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (line.startsWith("http://") || line.startsWith("https://")) urls.add(line);
+                else files.add(line);
+            }
+        } catch (IOException e) {
+            Runner.log(Strings.PARSER_ERROR_READING_SOURCE.get());
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2); // Files and URLs are validated side by side.
+        Future<FileBatchValidator> fileBatch = executor.submit(() -> new FileBatchValidator(files));
+        Future<URLBatchValidator> urlBatch = executor.submit(() -> new URLBatchValidator(urls));
+        executor.shutdown();
+        int added = 0;
+        int duplicates = 0;
+        Map<String, String> failures = new LinkedHashMap<>();
+        try {
+            for (File file : fileBatch.get().results()) {
+                if (addIfUnique(new FileFrequencyTabulator(file, FREQUENCY_TABLE))) added++;
+                else duplicates++;
+            }
+            for (URL url : urlBatch.get().results()) {
+                if (addIfUnique(new URLFrequencyTabulator(url, FREQUENCY_TABLE))) added++;
+                else duplicates++;
+            }
+            failures.putAll(fileBatch.get().failures());
+            failures.putAll(urlBatch.get().failures());
+        } catch (InterruptedException | ExecutionException e) {
+            Runner.log(Strings.PARSER_ERROR_READING_SOURCE.get());
+            return;
+        }
+        Runner.log(String.format(Strings.PARSER_BATCH_IMPORT_SUMMARY.get(), added, duplicates, failures.size()));
+        int shown = 0;
+        for (Map.Entry<String, String> failure : failures.entrySet()) {
+            if (shown++ == 10) {
+                Runner.log(String.format(Strings.PARSER_BATCH_IMPORT_MORE_FAILURES.get(), failures.size() - 10));
+                break;
+            }
+            Runner.log(failure.getValue() + " " + failure.getKey());
+        }
+    }
+
+    /**
+     * <p>Writes the full frequency table of the last <code>execute</code> call to a <code>FrequencySnapshot</code> file. If the table was spilled to disk, its runs are merged into the file; if it is off the heap, it is written straight from its buffers. A result made with any other scoring than <code>RAW</code> holds scores of the top words rather than counts, so it is not exported.</p>
+     * <p>This method runs in <b>linearithmic time O(n log n)</b> because the snapshot is sorted by word.</p>
+     *
+     * @param file The snapshot file to be written.
+     */
+    // O(n log n) see JavaDocs
+    public static void exportSnapshot(File file) {
+        if (file == null) return;
+        if (spilledTable != null) {
+            try {
+                spilledTable.export(file);
+                Runner.log(Strings.PARSER_SNAPSHOT_EXPORT_SUCCESS.get());
+            } catch (IOException e) {
+                Runner.log(Strings.PARSER_SNAPSHOT_EXPORT_ERROR.get());
             }
+            return;
+        }
+        if (offHeapTable != null) {
+            try {
+                offHeapTable.export(file);
+                Runner.log(Strings.PARSER_SNAPSHOT_EXPORT_SUCCESS.get());
+            } catch (IOException e) {
+                Runner.log(Strings.PARSER_SNAPSHOT_EXPORT_ERROR.get());
+            }
+            return;
+        }
+        if (lastResult == null) {
+            Runner.log(Strings.PARSER_SNAPSHOT_NOTHING_TO_EXPORT.get());
+            return;
+        }
+        if (lastScoring != Scoring.RAW) {
+            Runner.log(Strings.PARSER_SNAPSHOT_NOT_RAW.get());
+            return;
+        }
+        try {
+            FrequencySnapshot.export(lastResult, file);
+            Runner.log(Strings.PARSER_SNAPSHOT_EXPORT_SUCCESS.get());
+        } catch (IOException e) {
+            Runner.log(Strings.PARSER_SNAPSHOT_EXPORT_ERROR.get());
         }
     }
 
     /**
-     * Executes all stored <code>FrequencyTabulator</code>s simultaneously; returns a sorted <code>List</code> of <code>Map.Entry&lt;K,V&gt;</code> objects.
+     * <p>Runs the given tabulators simultaneously in this JVM, reporting their progress through <code>Runner.progress</code> twice a second and cancelling all of them if <code>Runner.isCancelRequested</code>.</p>
+     *
+     * @param jobs The tabulators to be run.
+     * @param job  What to do with each tabulator, such as tabulating it into a table; called on the tabulator's own thread.
+     */
+    // O(n) see FrequencyTabulator.tabulate
+    private static void runLocally(List<FrequencyTabulator<?>> jobs, Consumer<FrequencyTabulator<?>> job) {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        AtomicInteger done = new AtomicInteger();
+        for (FrequencyTabulator<?> ft : jobs) {
+            executor.execute(() -> {
+                job.accept(ft);
+                done.incrementAndGet();
+            });
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                Runner.progress(progress(done.get(), jobs));
+                if (Runner.isCancelRequested()) {
+                    for (FrequencyTabulator<?> ft : jobs) ft.cancel();
+                    Runner.log(Strings.PARSER_CANCELLED.get());
+                }
+            }
+        } catch (InterruptedException e) {
+            for (FrequencyTabulator<?> ft : jobs) ft.cancel();
+            Thread.currentThread().interrupt();
+        }
+        Runner.progress(null);
+    }
+
+    /**
+     * <p>Signs every source that can be read twice and indexes the signatures in the order the sources were added, leaving out each source that is a near-duplicate of an earlier one. Streams are returned unsigned; they are checked once they have been tabulated.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the total length of the signed sources.</p>
+     *
+     * @param index The index of accepted signatures.
+     * @return The tabulators that remain to be tabulated.
+     */
+    // O(n) see JavaDocs
+    private static List<FrequencyTabulator<?>> signFirst(MinHash.Index index) {
+        List<FrequencyTabulator<?>> rereadable = new ArrayList<>();
+        for (FrequencyTabulator<?> ft : tabulators) if (ft.isRereadable()) rereadable.add(ft);
+        runLocally(rereadable, FrequencyTabulator::sign);
+        List<FrequencyTabulator<?>> remaining = new ArrayList<>();
+        for (FrequencyTabulator<?> ft : tabulators) {
+            if (!ft.isRereadable() || isDistinct(index, ft)) remaining.add(ft);
+        }
+        return remaining;
+    }
+
+    /**
+     * Adds the signature of a tabulated or signed source to the index, and logs the source if it is a near-duplicate of one already indexed.
+     *
+     * @param index The index of accepted signatures.
+     * @param ft    A tabulator that has been run.
+     * @return True, if the source is to be counted, or else, false.
+     */
+    // O(1) see MinHash.Index.addIfDistinct
+    private static boolean isDistinct(MinHash.Index index, FrequencyTabulator<?> ft) {
+        String original = index.addIfDistinct(ft.getSignature(), ft.toString());
+        if (original != null) Runner.log(String.format(Strings.PARSER_NEAR_DUPLICATE.get(), ft, original));
+        return original == null;
+    }
+
+    /**
+     * <p>Returns the <code>limit</code> most frequent words of a frequency table, sorted by count in descending order, without sorting the whole table: a min-heap of <code>limit</code> entries keeps the best words seen so far.</p>
+     * <p>This method runs in <b>O(n log k)</b> time with n being the number of words and k being <code>limit</code>.</p>
+     *
+     * @param table A frequency table.
+     * @param limit The maximum number of words returned.
+     * @return A new list of the top words and their counts, which is empty if the table is.
+     */
+    // O(n log k) see JavaDocs
+    static List<Map.Entry<String, Integer>> top(Map<String, Integer> table, int limit) {
+        return top(table.entrySet().iterator(), limit);
+    }
+
+    /**
+     * <p>Returns the <code>limit</code> most frequent words of a stream of entries, such as the merged runs of a <code>SpillingFrequencyTable</code>, like <code>top(Map, int)</code>. The entries are copied, so they may be views that change later.</p>
+     *
+     * @param entries The entries of a frequency table, each word once.
+     * @param limit   The maximum number of words returned.
+     * @return A new list of the top words and their counts, which is empty if there are no entries.
+     */
+    // O(n log k) see top(Map, int)
+    static List<Map.Entry<String, Integer>> top(Iterator<Map.Entry<String, Integer>> entries, int limit) {
+        PriorityQueue<Map.Entry<String, Integer>> heap = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue()); // Min-heap of the best words so far
+        while (entries.hasNext()) {
+            Map.Entry<String, Integer> entry = entries.next();
+            if (heap.size() < limit) heap.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+            else if (entry.getValue() > heap.peek().getValue()) {
+                heap.poll();
+                heap.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+            }
+        }
+        LinkedList<Map.Entry<String, Integer>> list = new LinkedList<>();
+        while (!heap.isEmpty()) list.addFirst(heap.poll()); // The heap yields the lowest count first.
+        return list;
+    }
+
+    /**
+     * <p>Returns a one-line summary of the progress of all tabulators: sources done, text and tokens read, and the estimated time left, which is known only if the sizes of all unfinished sources are known.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of tabulators.</p>
+     *
+     * @param done The number of tabulators that have finished.
+     * @param jobs The tabulators that are running.
+     * @return The progress line.
+     */
+    // O(n) see JavaDocs
+    private static String progress(int done, List<FrequencyTabulator<?>> jobs) {
+        long bytes = 0;
+        long tokens = 0;
+        long eta = 0;
+        for (FrequencyTabulator<?> ft : jobs) {
+            bytes += ft.getBytesRead();
+            tokens += ft.getTokensRead();
+            long expected = ft.getExpectedBytes();
+            if (eta >= 0 && (expected < 0 || ft.getBytesRead() < expected)) { // Unfinished, or of unknown size
+                long ftEta = ft.getEtaMillis();
+                eta = ftEta < 0 ? -1 : Math.max(eta, ftEta);
+            }
+        }
+        String etaText = eta < 0 ? "?" : String.valueOf((eta + 999) / 1000);
+        return String.format(Strings.PARSER_PROGRESS.get(), done, jobs.size(), bytes / (1024.0 * 1024.0), tokens, etaText);
+    }
+
+    /**
+     * <p>Tabulates every source into its own column of a <code>SourceColumns</code> store, in this JVM, and returns the top words by score. The column of a near-duplicate source is removed again.</p>
+     *
+     * @param jobs           The tabulators to be run.
+     * @param index          The index of accepted signatures, or <code>null</code> if near-duplicates are kept.
+     * @param isCheckedLater Whether a source is checked for near-duplicates once it has been tabulated.
+     * @return The top words by score, or <code>null</code> if no word was counted.
+     */
+    // O(n) see FrequencyTabulator.tabulate and SourceColumns.top
+    private static List<Map.Entry<String, Integer>> score(List<FrequencyTabulator<?>> jobs, MinHash.Index index, Predicate<FrequencyTabulator<?>> isCheckedLater) {
+        SourceColumns columns = new SourceColumns();
+        runLocally(jobs, ft -> {
+            SourceColumns.Column column = columns.newColumn();
+            ft.tabulate(column);
+            column.seal();
+            if (isCheckedLater.test(ft) && !isDistinct(index, ft)) columns.remove(column);
+        });
+        return columns.top(scoring, WordCloudRenderer.getMaxWords());
+    }
+
+    /**
+     * <p>Tabulates the sources into one pooled frequency table and returns its words sorted by count; see <code>execute</code>. A source that is checked for near-duplicates counts into a table of its own first, which is added to the pooled table only if the source is distinct. That table is of the same kind as the pooled one, see <code>newSourceTable</code>, so deduplication keeps the heap as small as the off-heap backend and the memory budget do.</p>
+     *
+     * @param jobs           The tabulators to be run.
+     * @param index          The index of accepted signatures, or <code>null</code> if near-duplicates are kept.
+     * @param isCheckedLater Whether a source is checked for near-duplicates once it has been tabulated.
+     * @return The words sorted by count in descending order, or <code>null</code> if no word was counted.
+     */
+    // O(n) see execute
+    private static List<Map.Entry<String, Integer>> count(List<FrequencyTabulator<?>> jobs, MinHash.Index index, Predicate<FrequencyTabulator<?>> isCheckedLater) {
+        List<Map.Entry<String, Integer>> list = null;
+        Map<String, Integer> backend = isOffHeap ? new OffHeapFrequencyTable() : FREQUENCY_TABLE;
+        Map<String, Integer> frequencyTable = memoryBudgetMegabytes > 0 ? new SpillingFrequencyTable(backend, memoryBudgetMegabytes) : backend;
+        if (index == null && DistributedTabulation.getWorkers() > 1) {
+            DistributedTabulation.execute(tabulators, frequencyTable);
+        } else {
+            runLocally(jobs, ft -> {
+                if (!isCheckedLater.test(ft)) {
+                    ft.tabulate(frequencyTable);
+                    return;
+                }
+                Map<String, Integer> own = newSourceTable(jobs.size()); // Held back until the source is known not to be a near-duplicate
+                ft.tabulate(own);
+                if (isDistinct(index, ft)) {
+                    try {
+                        if (own instanceof SpillingFrequencyTable) ((SpillingFrequencyTable) own).mergeInto(frequencyTable);
+                        else own.forEach((word, count) -> frequencyTable.merge(word, count, Integer::sum));
+                    } catch (IOException e) {
+                        Runner.log(Strings.PARSER_SPILL_MERGE_ERROR.get());
+                    }
+                }
+                own.clear(); // Releases the buffers or deletes the runs of the source.
+            });
+        }
+        if (frequencyTable instanceof SpillingFrequencyTable && ((SpillingFrequencyTable) frequencyTable).hasSpilled()) {
+            spilledTable = (SpillingFrequencyTable) frequencyTable;
+            try {
+                list = spilledTable.top(WordCloudRenderer.getMaxWords());
+            } catch (IOException e) {
+                Runner.log(Strings.PARSER_SPILL_MERGE_ERROR.get());
+            }
+        } else if (backend instanceof OffHeapFrequencyTable) {
+            offHeapTable = (OffHeapFrequencyTable) backend; // Kept off the heap until the next call, for exportSnapshot
+            list = offHeapTable.top(WordCloudRenderer.getMaxWords());
+        } else if (!frequencyTable.isEmpty()) {
+            list = new LinkedList<>(frequencyTable.entrySet());
+            list.sort(Map.Entry.comparingByValue()); // O(n)
+            Collections.reverse(list); // O(1) with a doubly-linked list
+            frequencyTable.clear();
+        }
+        return list;
+    }
+
+    /**
+     * Returns a table for the counts of a single source that are held back until the source is known not to be a near-duplicate. Like the pooled table, it is kept off the heap if <code>isOffHeap</code> is set, and it spills to disk if a memory budget is set; the budget is shared by the sources that may be counted at the same time.
+     *
+     * @param sources The number of sources counted at the same time.
+     * @return A new, empty table that is written by a single thread.
+     */
+    // O(1) no loops here
+    private static Map<String, Integer> newSourceTable(int sources) {
+        Map<String, Integer> backend = isOffHeap ? new OffHeapFrequencyTable() : new HashMap<>();
+        return memoryBudgetMegabytes > 0 ? new SpillingFrequencyTable(backend, Math.max(1, memoryBudgetMegabytes / sources)) : backend;
+    }
+
+    /**
+     * Executes all stored <code>FrequencyTabulator</code>s simultaneously; returns a sorted <code>List</code> of <code>Map.Entry&lt;K,V&gt;</code> objects. The tabulators count into an <code>OffHeapFrequencyTable</code> if <code>isOffHeap</code> is set, or else, into the class's <code>ConcurrentHashMap</code>. If more than one worker is set, the tabulators are handed to <code>DistributedTabulation</code> instead of being run in this JVM.
      * <p>This method runs in <b>linear time O(n)</b>.</p>
      *
+     * <p>Unless the scoring is <code>RAW</code>, every source counts into its own column of a <code>SourceColumns</code> store instead, always in this JVM, and the list holds the top words by score (scaled to whole numbers), limited to the renderer's maximum number of words.</p>
+     * <p>If a memory budget is set, the table is a <code>SpillingFrequencyTable</code> around the usual backend. If it had to spill to disk, the list holds only the top words with their exact counts, limited to the renderer's maximum number of words, and the spilled runs are kept until the next call.</p>
+     * <p>Likewise, an <code>OffHeapFrequencyTable</code> is never copied onto the heap as a whole: the list holds only its top words, limited to the renderer's maximum number of words, and the table is kept until the next call.</p>
+     * <p>If near-duplicates are removed, sources whose MinHash signatures match one that is already counted are left out, and the tabulators are always run in this JVM. After counting, the source that finishes first is kept; before counting, the source that was added first.</p>
+     * <p>The list is also kept until the next call, so that it can be exported with <code>exportSnapshot</code>.</p>
+     * <p>While the tabulators run in this JVM, their progress is reported through <code>Runner.progress</code> twice a second, and all of them are cancelled if <code>Runner.isCancelRequested</code>; the words counted up to then are still returned.</p>
+     *
      * @return A list of all words contained in any parsed texts, <b>sorted by frequency in descending order</b>. The list is made up of <code>Map.Entry&lt;K,V&gt;</code> objects where:<br>&emsp;K == <code>String</code> word<br>&emsp;V == <code>Integer</code> number of occurrences
      */
     // O(n) see JavaDocs - for loop on list, and the comparator also runs in linear time
     public static List<Map.Entry<String, Integer>> execute() {
         List<Map.Entry<String, Integer>> list = null;
+        if (spilledTable != null) {
+            spilledTable.clear(); // Deletes the runs of the previous call.
+            spilledTable = null;
+        }
+        if (offHeapTable != null) {
+            offHeapTable.clear(); // Releases the buffers of the previous call.
+            offHeapTable = null;
+        }
         if (tabulators.isEmpty()) {
             Runner.log(Strings.PARSER_JOB_LIST_EMPTY_NO_WORDS.get());
         } else {
-            ExecutorService executor = Executors.newCachedThreadPool();
-            for (FrequencyTabulator<?> ft : tabulators) {
-                executor.execute(ft);
-            }
-            executor.shutdown();
-            while (true) {
-                if (executor.isTerminated()) break;
-            }
-            if (!FREQUENCY_TABLE.isEmpty()) {
-                list = new LinkedList<>(FREQUENCY_TABLE.entrySet());
-                list.sort(Map.Entry.comparingByValue()); // O(n)
-                Collections.reverse(list); // O(1) with a doubly-linked list
-                FREQUENCY_TABLE.clear();
-            }
+            MinHash.Index index = deduplication != Deduplication.OFF ? new MinHash.Index() : null;
+            List<FrequencyTabulator<?>> jobs = deduplication == Deduplication.TWO_PASS ? signFirst(index) : tabulators;
+            Predicate<FrequencyTabulator<?>> isCheckedLater = ft -> index != null && !(deduplication == Deduplication.TWO_PASS && ft.isRereadable());
+            list = scoring != Scoring.RAW ? score(jobs, index, isCheckedLater) : count(jobs, index, isCheckedLater);
         }
+        lastResult = list;
+        lastScoring = scoring;
         return list;
     }
 
+    /**
+     * <p>Profiles every file and URL in the parser list in one lightweight pass, without building frequency tables, and logs a report: for each source, its size, tokens, estimated distinct tokens, share of stop words and read throughput, followed by the totals and the estimated size of the frequency table of all sources. This shows ahead of a full render whether it needs a memory budget, more workers or deduplication.</p>
+     * <p>Streams and snapshots are not profiled, as streams can only be read once and snapshots are already counted.</p>
+     * <p>The sources are read simultaneously, with progress and cancellation as in <code>execute</code>. Distinct tokens are estimated by merging the <code>HyperLogLog</code> sketches of the sources, so memory use does not grow with the vocabulary.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the total size of the profiled sources.</p>
+     */
+    // O(n) see JavaDocs
+    public static void profile() {
+        List<FrequencyTabulator<?>> rereadable = new ArrayList<>();
+        for (FrequencyTabulator<?> ft : tabulators) if (ft.isRereadable()) rereadable.add(ft);
+        if (rereadable.isEmpty()) {
+            Runner.log(Strings.PARSER_JOB_LIST_EMPTY_NO_WORDS.get());
+            return;
+        }
+        long start = System.nanoTime();
+        runLocally(rereadable, FrequencyTabulator::profile);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        HyperLogLog vocabulary = new HyperLogLog();
+        long bytes = 0;
+        long tokens = 0;
+        for (FrequencyTabulator<?> ft : rereadable) {
+            SourceProfile profile = ft.getProfile();
+            Runner.log(profile.toString());
+            vocabulary.merge(profile.getVocabulary());
+            bytes += profile.getBytes();
+            tokens += profile.getTokens();
+        }
+        long distinct = vocabulary.estimate();
+        Runner.log(String.format(Strings.PROFILE_TOTAL.get(), rereadable.size(), bytes / 1048576.0, tokens, distinct, bytes / 1048576.0 / seconds));
+        Runner.log(String.format(Strings.PROFILE_TABLE_ESTIMATE.get(), Math.max(1, distinct * SpillingFrequencyTable.ENTRY_BYTES / 1048576)));
+        if (rereadable.size() < tabulators.size()) Runner.log(String.format(Strings.PROFILE_SKIPPED.get(), tabulators.size() - rereadable.size()));
+    }
+
     private Tabulators() {
     }
 
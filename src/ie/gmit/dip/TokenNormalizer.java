@@ -0,0 +1,17 @@
+package ie.gmit.dip;
+
+/**
+ * <p>A description of a normalization stage that maps a token to its base form, such as "running" to "run", so that inflected forms of a word are counted together. It runs between <code>tokenize</code> and <code>put</code>, after stop words and short tokens have been discarded.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public interface TokenNormalizer {
+    /**
+     * <p>Returns the base form of a token.</p>
+     *
+     * @param token A lowercase token.
+     * @return The base form, or <code>token</code> itself if it has none.
+     */
+    String normalize(String token);
+}
@@ -0,0 +1,36 @@
+package ie.gmit.dip;
+
+import java.net.URL;
+import java.util.Collection;
+
+/**
+ * <p>A class that takes in a batch of addresses on construction, safely interprets each of them as a <code>URL</code> and verifies simultaneously that a GET request to each <code>URL</code> will not fail. Every fetched body is cached by <code>HttpFetcher</code>, so rendering later only costs a conditional request per URL.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class URLBatchValidator extends BatchValidator<URL> {
+    public URLBatchValidator(Collection<String> inputs) {
+        super(inputs);
+    }
+
+    // O(n) see URLFromConsole.toURL
+    public URL recast(String input) {
+        return URLFromConsole.toURL(input);
+    }
+
+    // O(n) see URLFromConsole.isReachable
+    public boolean validate(URL url) {
+        return URLFromConsole.isReachable(url);
+    }
+
+    // O(1) threads mostly wait on the network, so many more than there are cores
+    protected int threads() {
+        return 32;
+    }
+
+    // O(1) the connect and read timeouts of HttpFetcher, plus some slack
+    protected int timeoutSeconds() {
+        return 25;
+    }
+}
@@ -3,7 +3,9 @@ package ie.gmit.dip;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.Map;
 
 /**
@@ -13,8 +15,12 @@ import java.util.Map;
  * @since 1.8
  */
 public class URLFrequencyTabulator extends FrequencyTabulator<URL> {
+    private volatile long bodyLength = -1;
+    private volatile HtmlTextReader html = null;
+
     /**
-     * <p>Returns a <code>BufferedReader</code> that reads the content at the source <code>URL</code> line by line.</p>
+     * <p>Returns a <code>BufferedReader</code> that reads the content at the source <code>URL</code> line by line. The content is fetched through <code>HttpFetcher</code>, so an unchanged page is read from the local cache after a single conditional request.</p>
+     * <p>HTML pages are read through an <code>HtmlTextReader</code>, so that only their visible text is tokenized and the contents of scripts, styles and boilerplate elements are never counted.</p>
      *
      * @param source The URL pointing at the text to be buffered.
      * @return A <code>BufferedReader</code> for the source <code>URL</code>, or <code>null</code> if the object fails to be created.
@@ -22,12 +28,83 @@ public class URLFrequencyTabulator extends FrequencyTabulator<URL> {
     // O(1), disregarding IO operations
     public BufferedReader read(URL source) {
         try {
-            return new BufferedReader(new InputStreamReader(source.openStream()));
-        } catch (IOException e) {
+            HttpFetcher.Response response = HttpFetcher.fetch(source);
+            bodyLength = response.getLength();
+            Reader body = new InputStreamReader(response.getBody(), charset(response.getContentType()));
+            html = isHtml(response.getContentType()) ? new HtmlTextReader(body) : null;
+            return new BufferedReader(html != null ? html : body);
+        } catch (IOException | ClassCastException e) {
             return null;
         }
     }
 
+    /**
+     * Returns the character set named in a content type such as "text/html; charset=UTF-8", or the platform default if there is none or it is not supported.
+     *
+     * @param contentType The content type sent by the server; may be <code>null</code>.
+     * @return The character set of the body.
+     */
+    // O(n) with n being the length of the content type
+    private static Charset charset(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                parameter = parameter.trim();
+                if (parameter.toLowerCase().startsWith("charset=")) {
+                    try {
+                        return Charset.forName(parameter.substring(8).replace("\"", "").trim());
+                    } catch (IllegalArgumentException ignored) {
+                    }
+                }
+            }
+        }
+        return Charset.defaultCharset();
+    }
+
+    /**
+     * Returns whether a content type denotes HTML or XHTML. Pages without a content type are assumed to be HTML, as plain text passes through an <code>HtmlTextReader</code> almost unchanged.
+     *
+     * @param contentType The content type sent by the server; may be <code>null</code>.
+     * @return True, if the body should be read as HTML, or else, false.
+     */
+    // O(n) with n being the length of the content type
+    private static boolean isHtml(String contentType) {
+        return contentType == null || contentType.toLowerCase().contains("html");
+    }
+
+    /**
+     * Returns the amount of the body read so far. For HTML pages, markup is included, so that it can be compared with the size of the body.
+     *
+     * @return The number of characters read.
+     */
+    // O(1) simple getter
+    @Override
+    public long getBytesRead() {
+        HtmlTextReader reader = html;
+        return reader != null ? reader.getCharsRead() : super.getBytesRead();
+    }
+
+    /**
+     * Returns the size of the fetched body, which is known once <code>read</code> has fetched it.
+     *
+     * @return The size of the body in bytes, or -1 if it has not been fetched yet.
+     */
+    // O(1) simple getter
+    @Override
+    public long getExpectedBytes() {
+        return bodyLength;
+    }
+
+    /**
+     * Returns true, as the page is kept in the <code>HttpFetcher</code> cache once it has been fetched, so it can be read again for tabulation after it has been signed.
+     *
+     * @return True.
+     */
+    // O(1) simple getter
+    @Override
+    public boolean isRereadable() {
+        return true;
+    }
+
     // O(1) no loops
     @Override
     public String toString() {
@@ -1,7 +1,6 @@
 package ie.gmit.dip;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 
@@ -18,8 +17,13 @@ public class URLFromConsole extends ConsoleValidator<URL> {
      * @param input A string to be interpreted as a <code>URL</code>; if it does not start with "http://" or "https://", adds "http://" to the beginning.
      * @return A <code>URL</code> object based on the <code>input</code>.
      */
-    // O(n) due to toLowerCase
+    // O(n) see toURL
     public URL recast(String input) {
+        return toURL(input);
+    }
+
+    // O(n) due to toLowerCase, shared with URLBatchValidator
+    static URL toURL(String input) {
         if (!input.startsWith("http://") && !input.startsWith("https://")) {
             input = "http://" + input.toLowerCase();
         }
@@ -31,25 +35,28 @@ public class URLFromConsole extends ConsoleValidator<URL> {
     }
 
     /**
-     * Verifies that a GET request to the <code>URL</code> will not fail; this requirement is met if a HEAD request yields an OK response within a reasonable time.
+     * Verifies that a GET request to the <code>URL</code> will not fail; this requirement is met if a GET request through <code>HttpFetcher</code> yields an OK response within a reasonable time. The body is cached, so rendering later only costs a conditional request instead of a second download.
      *
      * @param url The <code>URL</code> in question.
      * @return True, if an OK response is received, otherwise false.
      */
-    // O(1) disregarding IO operations, no guarantees about those
+    // O(n) with n being the size of the body, disregarding IO latency
     public boolean validate(URL url) {
         if (url != null) {
             System.out.printf(Strings.IO_INPUT_URL_PLEASE_WAIT.get(), url.getHost());
-            try {
-                HttpURLConnection huc = (HttpURLConnection) url.openConnection();
-                huc.setRequestMethod("HEAD");
-                huc.setConnectTimeout(5000);
-                return (huc.getResponseCode() == HttpURLConnection.HTTP_OK);
-            } catch (IOException e) {
-                return false;
-            }
+            return isReachable(url);
         } else {
             return false;
         }
     }
+
+    // O(n) with n being the size of the body, disregarding IO latency, shared with URLBatchValidator
+    static boolean isReachable(URL url) {
+        try {
+            HttpFetcher.fetch(url).close();
+            return true;
+        } catch (IOException | ClassCastException e) { // ClassCastException for non-HTTP URLs such as "ftp://"
+            return false;
+        }
+    }
 }
\ No newline at end of file
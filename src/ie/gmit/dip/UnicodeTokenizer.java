@@ -0,0 +1,187 @@
+package ie.gmit.dip;
+
+import java.util.StringTokenizer;
+
+/**
+ * <p>A class that splits a line of text into lowercase words in <b>a single pass</b>, without regular expressions. Letters of every script are kept together with their combining marks, so accented words such as "caf&eacute;" or "na&iuml;ve" stay whole. Scripts that are written without spaces between words, such as Chinese and Japanese, are split into overlapping pairs of characters (bigrams), which is the usual approximation of words for these scripts.</p>
+ * <p>Like the regular expressions it replaces, it removes HTML tags and entities and English contractions such as "n't" or "'ll", and treats digits, underscores and punctuation as separators.</p>
+ * <p>ASCII characters, which make up most English text, are looked up in a 128-entry table, so the common case costs one array access per character; only characters beyond ASCII are classified through <code>Character</code>.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class UnicodeTokenizer {
+    private static final char[] ASCII = new char[128]; // The lowercase letter for each ASCII letter, 0 for separators.
+    private static final String[] CONTRACTIONS = {"s", "d", "ve", "re", "ll", "m"};
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) ASCII[c] = c;
+        for (char c = 'A'; c <= 'Z'; c++) ASCII[c] = (char) (c + 32);
+    }
+
+    /**
+     * <p>Returns a <code>StringTokenizer</code> over the lowercase words of <code>line</code>.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the length of the line.</p>
+     *
+     * @param line The <code>String</code> containing tokens to be buffered.
+     * @return A <code>StringTokenizer</code> for the words of <code>line</code>.
+     */
+    // O(n) see clean
+    public static StringTokenizer tokenize(String line) {
+        return new StringTokenizer(clean(line));
+    }
+
+    /**
+     * <p>Returns the lowercase words of <code>line</code>, separated by single spaces.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the length of the line; each character is visited a constant number of times.</p>
+     *
+     * @param line A line of text.
+     * @return The words of the line.
+     */
+    // O(n) see JavaDocs
+    public static String clean(String line) {
+        int n = line.length();
+        StringBuilder sb = new StringBuilder(n + 16);
+        int i = 0;
+        while (i < n) {
+            char c = line.charAt(i);
+            if (c < 128) {
+                char lower = ASCII[c];
+                if (lower != 0) {
+                    sb.append(lower);
+                    i++;
+                } else if (c == '<') {
+                    i = skipTag(line, i);
+                    separate(sb);
+                } else if (c == '&') {
+                    i = skipEntity(line, i);
+                    separate(sb);
+                } else if (c == '\'') {
+                    i = skipContraction(line, i, sb);
+                } else {
+                    separate(sb);
+                    i++;
+                }
+                continue;
+            }
+            int cp = line.codePointAt(i);
+            int length = Character.charCount(cp);
+            if (cp == '\u2019') { // Typographic apostrophe
+                i = skipContraction(line, i, sb);
+            } else if (isIdeographic(cp)) {
+                i = appendBigrams(line, i, sb);
+            } else if (Character.isLetter(cp)) {
+                sb.appendCodePoint(Character.toLowerCase(cp));
+                i += length;
+            } else if (isMark(cp) && sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+                sb.appendCodePoint(cp); // A combining accent belongs to the letter before it.
+                i += length;
+            } else {
+                separate(sb);
+                i += length;
+            }
+        }
+        return sb.toString();
+    }
+
+    // O(1) ends the current word, if any
+    private static void separate(StringBuilder sb) {
+        if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+    }
+
+    // O(1) classifies one code point
+    private static boolean isMark(int cp) {
+        int type = Character.getType(cp);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK || type == Character.ENCLOSING_MARK;
+    }
+
+    /**
+     * Returns whether a code point belongs to a script that is written without spaces between words.
+     *
+     * @param cp A code point.
+     * @return True for Han ideographs, Hiragana and Katakana, or else, false.
+     */
+    // O(1) classifies one code point
+    static boolean isIdeographic(int cp) {
+        if (Character.isIdeographic(cp)) return true;
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HIRAGANA || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    /**
+     * Returns whether a token is long enough to be counted. Bigrams of ideographic scripts are always long enough, as a single ideograph can already be a word.
+     *
+     * @param token         A token returned by <code>tokenize</code>.
+     * @param minWordLength The minimum word length.
+     * @return True, if the token should be counted, or else, false.
+     */
+    // O(1) no loops here
+    public static boolean isLongEnough(String token, int minWordLength) {
+        return token.length() >= minWordLength || (token.charAt(0) >= 128 && isIdeographic(token.codePointAt(0)));
+    }
+
+    // O(n) with n being the length of the run; appends "ab bc cd" for the run "abcd"
+    private static int appendBigrams(String line, int start, StringBuilder sb) {
+        separate(sb);
+        int previous = line.codePointAt(start);
+        int i = start + Character.charCount(previous);
+        boolean hasBigram = false;
+        while (i < line.length()) {
+            int cp = line.codePointAt(i);
+            if (!isIdeographic(cp)) break;
+            if (hasBigram) sb.append(' ');
+            sb.appendCodePoint(previous).appendCodePoint(cp);
+            hasBigram = true;
+            previous = cp;
+            i += Character.charCount(cp);
+        }
+        if (!hasBigram) sb.appendCodePoint(previous); // A single ideograph on its own
+        sb.append(' ');
+        return i;
+    }
+
+    // O(n) with n being the length of the tag; a "<" without a closing ">" is just a separator
+    private static int skipTag(String line, int start) {
+        int end = line.indexOf('>', start + 1);
+        return end < 0 ? start + 1 : end + 1;
+    }
+
+    // O(n) with n being the length of the entity; an escaped tag such as "&lt;b&gt;" is skipped as a whole
+    private static int skipEntity(String line, int start) {
+        int i = start + 1;
+        while (i < line.length() && i - start <= 10 && Character.isLetterOrDigit(line.charAt(i))) i++;
+        if (i == start + 1 || i >= line.length() || line.charAt(i) != ';') return start + 1;
+        if (line.startsWith("&lt;", start)) {
+            int end = line.indexOf("&gt;", i + 1);
+            if (end >= 0) return end + 4;
+        }
+        return i + 1;
+    }
+
+    // O(1) removes "'s", "'d", "'ve", "'re", "'ll", "'m" and "n't" at the end of a word
+    private static int skipContraction(String line, int start, StringBuilder sb) {
+        int end = start + 1;
+        while (end < line.length() && end - start <= 3 && line.charAt(end) < 128 && ASCII[line.charAt(end)] != 0) end++;
+        boolean isWordEnd = end >= line.length() || !Character.isLetterOrDigit(line.charAt(end));
+        boolean isAfterWord = sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ';
+        if (isWordEnd && isAfterWord) {
+            String suffix = line.substring(start + 1, end).toLowerCase();
+            for (String contraction : CONTRACTIONS) {
+                if (suffix.equals(contraction)) {
+                    separate(sb);
+                    return end;
+                }
+            }
+            if (suffix.equals("t") && sb.charAt(sb.length() - 1) == 'n') {
+                sb.setLength(sb.length() - 1);
+                separate(sb);
+                return end;
+            }
+        }
+        separate(sb);
+        return start + 1;
+    }
+
+    private UnicodeTokenizer() {
+    }
+}
@@ -0,0 +1,245 @@
+package ie.gmit.dip;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A class that keeps the word cloud up to date while its sources change. Local files are watched through a <code>WatchService</code>, so no time is spent while nothing changes; URLs are polled with conditional requests through <code>HttpFetcher</code>, which cost one round trip and no download while a page is unchanged.</p>
+ * <p>Every source keeps its own frequency table, and the pooled table is their sum. When a source changes, only that source is tabulated again: its old counts are subtracted from the pooled table and its new ones added. Changes are debounced, so a burst of writes, such as an editor saving a file in several steps, leads to a single render once the burst is over.</p>
+ * <p>Tabulation and rendering happen on a single scheduler thread, so the tables need no locking. Images are written through <code>WordCloudIO</code>, which replaces the output file atomically.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class WatchedTabulation {
+    private static final long DEBOUNCE_MILLIS = 500;
+    private static int pollSeconds = 60;
+    private static volatile ScheduledExecutorService scheduler = null;
+    private static WatchService watchService = null;
+    private static Thread watcher = null;
+    private static ScheduledFuture<?> pendingRender = null; // Guarded by CHANGED, like the set of changed sources
+    private static final Map<FrequencyTabulator<?>, Map<String, Integer>> TABLES = new LinkedHashMap<>();
+    private static final Map<String, Integer> TOTALS = new HashMap<>();
+    private static final Set<FrequencyTabulator<?>> CHANGED = new LinkedHashSet<>();
+
+    /**
+     * Returns the interval between two checks of a URL source.
+     *
+     * @return The polling interval in seconds.
+     */
+    // O(1) simple getter/setter
+    public static int getPollSeconds() {
+        return pollSeconds;
+    }
+
+    /**
+     * Sets the interval between two checks of a URL source. The new interval applies the next time watching is started.
+     *
+     * @param seconds The new polling interval in seconds.
+     */
+    // O(1) simple getter/setter
+    public static void setPollSeconds(int seconds) {
+        pollSeconds = seconds;
+        Runner.log(Strings.VAR_SET_POLL_INTERVAL.get());
+    }
+
+    /**
+     * Returns whether a source can be watched: files, snapshots and URLs can, streams cannot, as they can only be read once.
+     */
+    // O(1) no loops here
+    private static boolean isWatchable(FrequencyTabulator<?> ft) {
+        return ft.isRereadable() || ft instanceof SnapshotFrequencyTabulator;
+    }
+
+    /**
+     * <p>Tabulates every file, snapshot and URL in the parser list, renders the word cloud, and then renders it again whenever a source changes, until <code>stop</code> is called. The output image is overwritten without asking. Counts are pooled as raw counts; near-duplicate removal and scoring across sources do not apply.</p>
+     *
+     * @return True, if watching has started, or false, if there is nothing to watch or it could not be started.
+     */
+    // O(n) for the first tabulation, see FrequencyTabulator.tabulate
+    public static synchronized boolean start() {
+        if (scheduler != null) return true;
+        List<FrequencyTabulator<?>> sources = new ArrayList<>();
+        for (FrequencyTabulator<?> ft : Tabulators.getTabulators()) if (isWatchable(ft)) sources.add(ft);
+        if (sources.isEmpty()) {
+            Runner.log(Strings.WATCH_NOTHING_TO_WATCH.get());
+            return false;
+        }
+        Map<Path, List<FrequencyTabulator<?>>> files = new HashMap<>();
+        List<FrequencyTabulator<?>> urls = new ArrayList<>();
+        for (FrequencyTabulator<?> ft : sources) {
+            if (ft.source() instanceof File) {
+                Path path = ((File) ft.source()).toPath().toAbsolutePath();
+                files.computeIfAbsent(path, p -> new ArrayList<>()).add(ft);
+            } else urls.add(ft);
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> directories = new HashSet<>();
+            for (Path path : files.keySet()) directories.add(path.getParent());
+            for (Path directory : directories) { // A file is watched through its directory, which also sees it being replaced by a rename.
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        } catch (IOException e) {
+            Runner.log(Strings.WATCH_ERROR.get());
+            closeWatchService();
+            return false;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        synchronized (CHANGED) {
+            CHANGED.addAll(sources);
+        }
+        scheduler.execute(WatchedTabulation::render);
+        for (FrequencyTabulator<?> ft : urls) {
+            scheduler.scheduleWithFixedDelay(() -> poll(ft), pollSeconds, pollSeconds, TimeUnit.SECONDS);
+        }
+        WatchService service = watchService;
+        watcher = new Thread(() -> watch(service, files));
+        watcher.setDaemon(true);
+        watcher.start();
+        Runner.log(String.format(Strings.WATCH_STARTED.get(), sources.size(), pollSeconds));
+        return true;
+    }
+
+    /**
+     * <p>Waits for file events and marks the sources of changed files. The thread blocks in <code>take</code> between events, and ends when the watch service is closed by <code>stop</code>.</p>
+     *
+     * @param service The watch service.
+     * @param files   The watched sources by their absolute path.
+     */
+    // O(e) per key with e being the number of events in it
+    private static void watch(WatchService service, Map<Path, List<FrequencyTabulator<?>>> files) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) { // Events were lost, so every file may have changed.
+                        for (List<FrequencyTabulator<?>> fts : files.values()) changed(fts);
+                        continue;
+                    }
+                    List<FrequencyTabulator<?>> fts = files.get(directory.resolve((Path) event.context()));
+                    if (fts != null) changed(fts);
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+        } // Watching has been stopped.
+    }
+
+    /**
+     * Revalidates a URL source with a conditional request and marks it if its content has changed.
+     *
+     * @param ft The tabulator of the URL.
+     */
+    // O(n) with n being the size of a changed page, disregarding IO latency
+    private static void poll(FrequencyTabulator<?> ft) {
+        try (HttpFetcher.Response response = HttpFetcher.fetch((URL) ft.source())) {
+            if (response.isModified()) changed(Collections.singletonList(ft));
+        } catch (IOException ignored) {
+        } // An unreachable page keeps its last counts and is polled again.
+    }
+
+    /**
+     * Marks sources as changed and (re)schedules a render once no further change has arrived for <code>DEBOUNCE_MILLIS</code>.
+     *
+     * @param fts The changed sources.
+     */
+    // O(n) with n being the number of sources marked
+    private static void changed(Collection<FrequencyTabulator<?>> fts) {
+        synchronized (CHANGED) { // Not the class lock, which stop holds while it waits for the scheduler thread to finish polling
+            ScheduledExecutorService current = scheduler;
+            if (current == null || current.isShutdown()) return;
+            CHANGED.addAll(fts);
+            if (pendingRender != null) pendingRender.cancel(false);
+            pendingRender = current.schedule(WatchedTabulation::render, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * <p>Tabulates the changed sources again, updates the pooled table and renders the word cloud from its top words. Runs on the scheduler thread only.</p>
+     * <p>This method runs in <b>linear time O(n + w log k)</b> with n being the size of the changed sources, w being the number of distinct words and k the maximum number of words rendered.</p>
+     */
+    // O(n + w log k) see JavaDocs
+    private static void render() {
+        List<FrequencyTabulator<?>> changed;
+        synchronized (CHANGED) {
+            changed = new ArrayList<>(CHANGED);
+            CHANGED.clear();
+        }
+        if (changed.isEmpty()) return;
+        for (FrequencyTabulator<?> ft : changed) {
+            Map<String, Integer> old = TABLES.remove(ft);
+            if (old != null) old.forEach((word, count) -> TOTALS.computeIfPresent(word, (w, total) -> total - count == 0 ? null : total - count));
+            Map<String, Integer> table = new HashMap<>();
+            ft.tabulate(table);
+            TABLES.put(ft, table);
+            table.forEach((word, count) -> TOTALS.merge(word, count, Integer::sum));
+        }
+        List<Map.Entry<String, Integer>> list = Tabulators.top(TOTALS, WordCloudRenderer.getMaxWords());
+        if (list.isEmpty()) Runner.log(Strings.RENDER_WORD_LIST_EMPTY.get());
+        else WordCloudRenderer.refresh(list);
+    }
+
+    /**
+     * Stops watching and polling, and releases the tables. A render in progress finishes writing its image.
+     */
+    // O(1) stops the threads that do the work
+    public static synchronized void stop() {
+        if (scheduler == null) return;
+        closeWatchService();
+        synchronized (CHANGED) {
+            if (pendingRender != null) pendingRender.cancel(false);
+            scheduler.shutdown();
+        } // Cancels polling and pending renders, but lets a render in progress finish writing its image.
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        watcher = null;
+        TABLES.clear();
+        TOTALS.clear();
+        synchronized (CHANGED) {
+            pendingRender = null;
+            CHANGED.clear();
+        }
+        Runner.log(Strings.WATCH_STOPPED.get());
+    }
+
+    /**
+     * Blocks the calling thread until watching is stopped, e.g. in batch mode, where the process runs until it is terminated.
+     *
+     * @throws InterruptedException If the calling thread is interrupted.
+     */
+    // O(1) waits for the watcher thread
+    public static void await() throws InterruptedException {
+        Thread thread;
+        synchronized (WatchedTabulation.class) {
+            thread = watcher;
+        }
+        if (thread != null) thread.join();
+    }
+
+    // O(1) ends the watcher thread
+    private static void closeWatchService() {
+        if (watchService == null) return;
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        watchService = null;
+    }
+
+    private WatchedTabulation() {
+    }
+}
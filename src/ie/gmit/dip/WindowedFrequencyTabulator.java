@@ -0,0 +1,162 @@
+package ie.gmit.dip;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A <code>Runnable</code> used to follow a growing text file, such as a log or chat transcript, and count its tokens into a <code>SlidingWindowFrequencyTable</code>. Like <code>tail -f</code>, it keeps reading new lines as they are appended until its thread is interrupted.</p>
+ * <p>Each line is counted at the time it starts with, if it starts with an ISO-8601 date and time (such as <code>2024-05-01T12:00:00Z</code> or <code>2024-05-01 12:00:00</code>) or with epoch seconds or milliseconds; lines without a timestamp are counted at the time they are read. Once a line has carried a timestamp, the stream is taken to be in event time, and later lines without one, such as continuation lines, are counted at the last timestamp seen instead, so that replaying an old log does not mix the clock into its window.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public class WindowedFrequencyTabulator extends FrequencyTabulator<File> {
+    private static final Pattern TIMESTAMP = Pattern.compile(Strings.PARSER_PATTERN_TIMESTAMP.get());
+    private static final long POLL_MILLIS = 250;
+    private final SlidingWindowFrequencyTable WINDOW;
+    private volatile boolean isEventTime = false;
+    private long lastEventTime = -1;
+
+    /**
+     * <p>Returns a <code>BufferedReader</code> that reads the content of the source <code>File</code> from its start.</p>
+     *
+     * @param source The file to be followed.
+     * @return A <code>BufferedReader</code> for the source <code>file</code>, or <code>null</code> if the object fails to be created.
+     */
+    // O(1) no loops here
+    public BufferedReader read(File source) {
+        try {
+            return new BufferedReader(new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8));
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the lines read so far carry their own timestamps, in which case the window follows the stream's time rather than the clock.
+     *
+     * @return True, if any line read so far started with a timestamp, or else, false.
+     */
+    // O(1) simple getter
+    public boolean isEventTime() {
+        return isEventTime;
+    }
+
+    /**
+     * <p>Returns the time a line starts with, in milliseconds since the epoch, or -1 if it does not start with a timestamp. Dates without an offset are taken to be in the system's time zone.</p>
+     *
+     * @param matcher A matcher of the timestamp pattern that has matched the start of a line.
+     * @return The timestamp, or -1 if it cannot be parsed.
+     */
+    // O(1) the timestamp has a bounded length
+    private static long parseTimestamp(Matcher matcher) {
+        try {
+            if (matcher.group(1) != null) {
+                String dateTime = matcher.group(1) + "T" + matcher.group(2);
+                String offset = matcher.group(3);
+                if (offset == null) return LocalDateTime.parse(dateTime).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                if (offset.equals("Z")) return Instant.parse(dateTime + "Z").toEpochMilli();
+                if (offset.length() == 5) offset = offset.substring(0, 3) + ":" + offset.substring(3); // +0100 -> +01:00
+                return OffsetDateTime.parse(dateTime + offset).toInstant().toEpochMilli();
+            }
+            long epoch = Long.parseLong(matcher.group(4));
+            return matcher.group(4).length() <= 10 ? epoch * 1000 : epoch;
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * <p>Counts the tokens of one line into the window, applying the same filters and normalization as <code>FrequencyTabulator.tabulate</code>. The timestamp itself is not counted.</p>
+     *
+     * @param line          A complete line of the source.
+     * @param minWordLength The minimum word length.
+     * @param stopWords     The stop words.
+     * @param normalizer    The normalizer, or <code>null</code>.
+     */
+    // O(n) with n being the length of the line
+    private void countLine(String line, int minWordLength, Set<String> stopWords, TokenNormalizer normalizer) {
+        long timestamp = -1;
+        Matcher matcher = TIMESTAMP.matcher(line);
+        if (matcher.lookingAt()) {
+            timestamp = parseTimestamp(matcher);
+            if (timestamp >= 0) line = line.substring(matcher.end());
+        }
+        if (timestamp >= 0) {
+            isEventTime = true;
+            lastEventTime = timestamp;
+        } else timestamp = isEventTime ? lastEventTime : System.currentTimeMillis();
+        StringTokenizer tokenizer = tokenize(line);
+        while (tokenizer.hasMoreTokens()) {
+            String token = tokenizer.nextToken();
+            if (UnicodeTokenizer.isLongEnough(token, minWordLength) && !(stopWords.contains(token))) {
+                if (normalizer != null) token = normalizer.normalize(token);
+                WINDOW.put(timestamp, token);
+            }
+        }
+    }
+
+    /**
+     * <p>Reads the source from its start and then keeps polling it for appended text until the thread is interrupted. Only complete lines are counted, so a line that is still being written is never split into two.</p>
+     * <p>The counts go to the window passed on construction; <code>frequencyTable</code> is not used. Phrases are not counted in windowed mode.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the amount of text read.</p>
+     *
+     * @param frequencyTable Ignored.
+     */
+    // O(n) see JavaDocs
+    @Override
+    public void tabulate(Map<String, Integer> frequencyTable) {
+        BufferedReader reader = read(source());
+        if (reader == null) {
+            Runner.log(Strings.PARSER_ERROR_READING_SOURCE.get());
+            return;
+        }
+        int minWordLength = Tabulators.getMinWordLength();
+        Set<String> stopWords = Tabulators.getStopWords();
+        TokenNormalizer normalizer = Tabulators.getNormalizer();
+        StringBuilder line = new StringBuilder();
+        char[] buffer = new char[8192];
+        try (BufferedReader in = reader) {
+            while (!Thread.currentThread().isInterrupted()) {
+                int n = in.read(buffer);
+                if (n < 0) {
+                    Thread.sleep(POLL_MILLIS); // At the end of the file for now; wait for more to be appended.
+                    continue;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') {
+                        countLine(line.toString(), minWordLength, stopWords, normalizer);
+                        line.setLength(0);
+                    } else line.append(buffer[i]);
+                }
+            }
+        } catch (IOException e) {
+            Runner.log(Strings.PARSER_ERROR_READING_SOURCE.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // O(1) no loops here
+    public String toString() {
+        try {
+            return source().getCanonicalPath();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public WindowedFrequencyTabulator(File file, SlidingWindowFrequencyTable window) {
+        super(file, null);
+        this.WINDOW = window;
+    }
+}
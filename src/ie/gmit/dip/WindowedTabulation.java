@@ -0,0 +1,100 @@
+package ie.gmit.dip;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A class that renders "top words over the last n minutes" word clouds from a growing text file. A <code>WindowedFrequencyTabulator</code> follows the file on its own thread and counts into a <code>SlidingWindowFrequencyTable</code>, while the word cloud is rendered again from the window's top words at a fixed interval.</p>
+ * <p>Because expired time slices are subtracted and the top words are kept sorted as they are counted, each refresh costs only as much as the text appended since the last one plus the rendering itself.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class WindowedTabulation {
+    private static final int SLICES = 60;
+    private static int windowMinutes = 15;
+    private static int refreshSeconds = 5;
+    private static Thread follower = null;
+    private static ScheduledExecutorService refresher = null;
+
+    /**
+     * Returns the length of the time window in minutes.
+     *
+     * @return The window length in minutes.
+     */
+    // O(1) simple getter/setter
+    public static int getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    /**
+     * Returns the interval between two renders in seconds.
+     *
+     * @return The refresh interval in seconds.
+     */
+    // O(1) simple getter/setter
+    public static int getRefreshSeconds() {
+        return refreshSeconds;
+    }
+
+    /**
+     * Sets the length of the time window and the interval between two renders. The new settings apply the next time a windowed cloud is started.
+     *
+     * @param minutes The new window length in minutes.
+     * @param seconds The new refresh interval in seconds.
+     */
+    // O(1) simple getter/setter
+    public static void setWindow(int minutes, int seconds) {
+        windowMinutes = minutes;
+        refreshSeconds = seconds;
+        Runner.log(Strings.VAR_SET_WINDOW.get());
+    }
+
+    /**
+     * <p>Starts following <code>file</code> and rendering the word cloud of the current window every few seconds, until <code>stop</code> is called. The output image is overwritten without asking.</p>
+     * <p>When the file's lines carry timestamps, the window ends at the newest timestamp read, so old logs can be replayed; otherwise it ends at the current time, so words keep expiring while the file is idle.</p>
+     *
+     * @param file The file to be followed, or <code>null</code> to do nothing.
+     */
+    // O(1) starts the threads that do the work
+    public static synchronized void start(File file) {
+        if (file == null || follower != null) return;
+        SlidingWindowFrequencyTable window = new SlidingWindowFrequencyTable(windowMinutes * 60_000L, SLICES);
+        WindowedFrequencyTabulator ft = new WindowedFrequencyTabulator(file, window);
+        follower = new Thread(ft);
+        follower.setDaemon(true);
+        follower.start();
+        refresher = Executors.newSingleThreadScheduledExecutor();
+        refresher.scheduleWithFixedDelay(() -> {
+            if (!ft.isEventTime()) window.advance(System.currentTimeMillis());
+            List<Map.Entry<String, Integer>> list = window.top(WordCloudRenderer.getMaxWords());
+            if (!list.isEmpty()) WordCloudRenderer.refresh(list);
+        }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        Runner.log(String.format(Strings.WINDOW_STARTED.get(), windowMinutes, refreshSeconds));
+    }
+
+    /**
+     * Stops following the file and rendering. The last rendered image is kept.
+     */
+    // O(1) interrupts the threads that do the work
+    public static synchronized void stop() {
+        if (follower == null) return;
+        follower.interrupt();
+        refresher.shutdown(); // Cancels the next render, but lets a render in progress finish writing its image.
+        try {
+            refresher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        follower = null;
+        refresher = null;
+        Runner.log(Strings.WINDOW_STOPPED.get());
+    }
+
+    private WindowedTabulation() {
+    }
+}
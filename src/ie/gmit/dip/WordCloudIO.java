@@ -5,6 +5,7 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Scanner;
 
 /**
@@ -50,6 +51,49 @@ public final class WordCloudIO {
         return new File(imageDir, imageFileName);
     }
 
+    /**
+     * Returns a new <code>File</code> object which points to the path under which an output variant will be saved. The size and format are added to the image file name, e.g. "wcloud-1200x600.jpg".
+     *
+     * @param variant The output variant.
+     * @return A <code>File</code> object instantiated using the image path and a file name for the variant.
+     */
+    // O(1) simple getter/setter, the name is only a few chars long
+    public static File getImageFile(RenderVariant variant) {
+        String baseName = imageFileName.substring(0, imageFileName.length() - 4); // The name always ends with ".png", see setImageFileName.
+        return new File(imageDir, baseName + "-" + variant.getWidth() + "x" + variant.getHeight() + "." + variant.getFormat());
+    }
+
+    /**
+     * Returns a new <code>File</code> object which points to the path under which an animated word cloud will be saved: the image file name with the extension ".gif", e.g. "wcloud.gif".
+     *
+     * @return A <code>File</code> object instantiated using the image path and a file name for the animation.
+     */
+    // O(1) simple getter/setter
+    public static File getAnimationFile() {
+        return new File(imageDir, imageFileName.substring(0, imageFileName.length() - 4) + ".gif"); // The name always ends with ".png", see setImageFileName.
+    }
+
+    /**
+     * <p>Checks if there already is an existing file at the output path of an animation.</p>
+     *
+     * @return True if a file exists, or else, false.
+     */
+    // O(1) just reading system properties
+    public static boolean animationFileExists() {
+        return Files.isRegularFile(getAnimationFile().toPath());
+    }
+
+    /**
+     * <p>Checks if there already is an existing file at the output path of a variant.</p>
+     *
+     * @param variant The output variant.
+     * @return True if a file exists, or else, false.
+     */
+    // O(1) just reading system properties
+    public static boolean imageFileExists(RenderVariant variant) {
+        return Files.isRegularFile(getImageFile(variant).toPath());
+    }
+
     /**
      * <p>Checks if there already is an existing file at the output path.</p>
      *
@@ -81,17 +125,126 @@ public final class WordCloudIO {
      * <p>Writes an <code>image</code> under a path and file name stored in class variables as a <code>PNG</code> file. Checks if the file exists before saving and asks the user to confirm via the console.</p>
      *
      * @param image The image to be written. Cannot be null.
+     * @return True, if the image was written, or else, false.
      */
     // The PNG writer needs to iterate over the image. Depending on its implementation, it could be O(n^2) in the worst case.
-    public static void writeImageFile(BufferedImage image) {
+    public static boolean writeImageFile(BufferedImage image) {
         if (image != null) {
             try {
-                ImageIO.write(image, "png", getImageFile());
+                writeAtomically(image, "png", getImageFile());
                 Runner.log(Strings.IO_WRITING_IMAGE_SUCCESS.get());
+                return true;
+            } catch (IOException e) {
+                Runner.log(Strings.IO_WRITING_IMAGE_ERROR.get());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>Writes an <code>image</code> in the format of an output variant under the variant's file name. Unlike <code>writeImageFile(BufferedImage)</code>, it does not ask for confirmation, as the caller checks for existing files once for all variants.</p>
+     *
+     * @param image   The image to be written. Cannot be null.
+     * @param variant The output variant.
+     * @return True, if the image was written, or else, false.
+     */
+    // The image writer needs to iterate over the image. Depending on its implementation, it could be O(n^2) in the worst case.
+    public static boolean writeImageFile(BufferedImage image, RenderVariant variant) {
+        if (image != null) {
+            try {
+                if (writeAtomically(image, variant.getFormat(), getImageFile(variant))) {
+                    Runner.log(String.format(Strings.IO_WRITING_VARIANT_SUCCESS.get(), variant));
+                    return true;
+                }
+                Runner.log(Strings.IO_WRITING_IMAGE_ERROR.get()); // No writer for the format
             } catch (IOException e) {
                 Runner.log(Strings.IO_WRITING_IMAGE_ERROR.get());
             }
         }
+        return false;
+    }
+
+    /**
+     * <p>Writes an image to a temporary file next to <code>target</code> and then renames it to <code>target</code> in one atomic step, so that anyone reading the output, such as a browser or a watching process, sees either the old image or the new one, but never a half-written file.</p>
+     *
+     * @param image  The image to be written.
+     * @param format The informal name of the image format, such as "png".
+     * @param target The output file.
+     * @return True, if the image was written, or false, if there is no writer for the format.
+     * @throws IOException If the file cannot be written or renamed.
+     */
+    // O(n) with n being the number of pixels, see writeImageFile
+    private static boolean writeAtomically(BufferedImage image, String format, File target) throws IOException {
+        File temp = File.createTempFile(".wcloud", ".tmp", target.getAbsoluteFile().getParentFile());
+        try {
+            if (!ImageIO.write(image, format, temp)) return false;
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(temp.toPath()); // Only left over if writing failed
+        }
+    }
+
+    /**
+     * Returns the directory that holds cached images, inside the output directory.
+     *
+     * @return The cache directory, which may not exist yet.
+     */
+    // O(1) simple getter/setter
+    private static File getCacheDir() {
+        return new File(imageDir, ".wcloud-cache");
+    }
+
+    // O(1) the key is a fixed-length digest
+    private static File getCachedImageFile(String key, File target) {
+        String name = target.getName();
+        return new File(getCacheDir(), key + name.substring(name.lastIndexOf('.')));
+    }
+
+    /**
+     * <p>Copies the cached image with the content address <code>key</code> to <code>target</code>, if it exists, so that it does not have to be rendered or encoded again. Like a freshly written image, the copy replaces <code>target</code> in one atomic step.</p>
+     *
+     * @param key    The content address of the image.
+     * @param target The output file.
+     * @return True, if the image was found in the cache and copied, or else, false.
+     */
+    // O(n) with n being the file size
+    public static boolean copyFromCache(String key, File target) {
+        File cached = getCachedImageFile(key, target);
+        if (!Files.isRegularFile(cached.toPath())) return false;
+        File temp = null;
+        try {
+            temp = File.createTempFile(".wcloud", ".tmp", target.getAbsoluteFile().getParentFile());
+            Files.copy(cached.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); // Like writeAtomically, readers never see a half-copied image.
+            Runner.log(Strings.IO_WRITING_IMAGE_FROM_CACHE.get());
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (temp != null) temp.delete(); // Only left over if copying or renaming failed
+        }
+    }
+
+    /**
+     * <p>Stores a copy of a freshly written image in the cache under its content address. A failure only means that the image will be rendered again next time, so it is not reported.</p>
+     *
+     * @param key    The content address of the image.
+     * @param source The image file that was just written.
+     */
+    // O(n) with n being the file size
+    public static void storeInCache(String key, File source) {
+        File cached = getCachedImageFile(key, source);
+        File temp = null;
+        try {
+            Files.createDirectories(getCacheDir().toPath());
+            temp = File.createTempFile("wcloud", ".tmp", getCacheDir());
+            Files.copy(source.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); // Other renders never see a half-copied cache entry.
+        } catch (IOException ignored) {
+        } finally {
+            if (temp != null) temp.delete(); // Only left over if copying or renaming failed
+        }
     }
 
     private WordCloudIO() {
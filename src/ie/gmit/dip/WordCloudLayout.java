@@ -0,0 +1,98 @@
+package ie.gmit.dip;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>The result of laying out a word cloud: which words are drawn, in which font, size, colour and position. A layout is computed once for a <i>reference size</i> and can be rendered at any other size by scaling it, so that several output variants can share one layout.</p>
+ *
+ * @version 1.0
+ * @since 1.8
+ */
+public final class WordCloudLayout {
+    private final int WIDTH;
+    private final int HEIGHT;
+    private final List<PlacedWord> WORDS = new ArrayList<>();
+
+    public WordCloudLayout(int width, int height) {
+        this.WIDTH = width;
+        this.HEIGHT = height;
+    }
+
+    // O(1) simple getter
+    public int getWidth() {
+        return WIDTH;
+    }
+
+    // O(1) simple getter
+    public int getHeight() {
+        return HEIGHT;
+    }
+
+    /**
+     * Returns the placed words in drawing order.
+     *
+     * @return An unmodifiable <code>List</code> of placed words.
+     */
+    // O(1) wraps the list without copying it
+    public List<PlacedWord> getWords() {
+        return Collections.unmodifiableList(WORDS);
+    }
+
+    // O(1) add to an ArrayList
+    void add(PlacedWord word) {
+        WORDS.add(word);
+    }
+
+    /**
+     * <p>A single word of a layout. Positions and the font size refer to the layout's reference size; the position is the left end of the word's baseline.</p>
+     */
+    public static final class PlacedWord {
+        private final String WORD;
+        private final int FONT;
+        private final float SIZE;
+        private final int X;
+        private final int Y;
+        private final int ARGB;
+
+        public PlacedWord(String word, int font, float size, int x, int y, int argb) {
+            this.WORD = word;
+            this.FONT = font;
+            this.SIZE = size;
+            this.X = x;
+            this.Y = y;
+            this.ARGB = argb;
+        }
+
+        // O(1) simple getter
+        public String getWord() {
+            return WORD;
+        }
+
+        // O(1) simple getter
+        public int getFont() {
+            return FONT;
+        }
+
+        // O(1) simple getter
+        public float getSize() {
+            return SIZE;
+        }
+
+        // O(1) simple getter
+        public int getX() {
+            return X;
+        }
+
+        // O(1) simple getter
+        public int getY() {
+            return Y;
+        }
+
+        // O(1) simple getter
+        public int getArgb() {
+            return ARGB;
+        }
+    }
+}
@@ -1,10 +1,22 @@
 package ie.gmit.dip;
 
+import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>A class that renders a set number of words from a text as a cloud that visualises the relative frequency of occurrence for each word.</p>
@@ -14,8 +26,21 @@ import java.util.Random;
  */
 public final class WordCloudRenderer {
     private static final Random random = new Random();
+    private static boolean isDeterministic = false;
     private static int maxWords = 12;
     private static int[] imageSize = new int[]{600, 300};
+    private static List<RenderVariant> variants = new ArrayList<>();
+    private static File maskFile = null;
+    private static BufferedImage mask = null;
+    private static final float MIN_WEIGHT = 0.3f;
+    private static final double FILL_RATIO = 0.55; // Positions are random and may overlap, so a denser fill would bury smaller words.
+    private static final int SCALE_SEARCH_STEPS = 16;
+    private static final float SIZE_TOLERANCE = 0.15f; // Relative change in font size below which a word keeps its pixels from one frame to the next
+    private static final double MASK_FILL_RATIO = 0.4; // Words in a mask may not overlap, so they need room to be placed at random.
+    private static final int MASK_TRIES = 2000; // Random positions tried per word and size before it is made smaller
+    private static final int MASK_SHRINK_STEPS = 4;
+    private static final float MASK_SHRINK_FACTOR = 0.85f;
+    private static final String SIZING = "sizing=metrics"; // Digested so that images laid out by an older sizing are not served from the cache.
 
     /**
      * <p>Returns the size of the output image as an integer array with the image width at index 0 and the image height at index 1.</p>
@@ -60,17 +85,141 @@ public final class WordCloudRenderer {
     }
 
     /**
-     * <p>Returns the appropriate font size to be used for a word <b>based on the image dimensions and several other parameters</b> which help strike a balance between an accurate visualisation of the relative frequency of each word and a legible, aesthetically pleasing result.</p>
+     * Returns the mask image file, if one is set.
+     *
+     * @return The mask file, or <code>null</code> if words fill the whole image.
+     */
+    // O(1) simple getter/setter
+    public static File getMask() {
+        return maskFile;
+    }
+
+    /**
+     * <p>Sets a mask image, such as a logo silhouette, so that words are only placed inside its shape: on its opaque pixels, or on its dark pixels if it has no transparency. The mask is scaled to the image size, and words inside it do not overlap. The image is read once, when it is set.</p>
+     *
+     * @param file The mask image file, or <code>null</code> to fill the whole image again.
+     */
+    // O(n) with n being the number of pixels in the mask, read by ImageIO
+    public static void setMask(File file) {
+        if (file == null) {
+            maskFile = null;
+            mask = null;
+            Runner.log(Strings.VAR_SET_MASK_REMOVED.get());
+            return;
+        }
+        try {
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) throw new IOException(file.toString()); // Not an image format ImageIO can read
+            maskFile = file;
+            mask = image;
+            Runner.log(Strings.VAR_SET_MASK.get());
+        } catch (IOException e) {
+            Runner.log(Strings.RENDER_MASK_ERROR.get());
+        }
+    }
+
+    /**
+     * <p>Returns the weight of a word's font size relative to the global scale: the most frequent word has a weight of 1 and the least frequent ones no less than <code>MIN_WEIGHT</code>, which keeps rare words legible while still visualising the relative frequency of each word.</p>
      * <p>This method runs in <b>constant time O(1)</b>.</p>
      *
-     * @param words       The total number of words rendered.
      * @param max         The number of times the most frequent word occurs in the source text.
      * @param occurrences The number of times this word occurs in the source text.
-     * @return The font size as a <code>Float</code>.
+     * @return The weight as a <code>Float</code>.
      */
     // O(1) no loop, just computation
-    private static float getFontSize(int words, int max, int occurrences) {
-        return (float) (getImageSize()[1] / 25 + 200 / words + (occurrences * (getImageSize()[0] / 20) / max));
+    private static float getSizeWeight(int max, int occurrences) {
+        return MIN_WEIGHT + (1 - MIN_WEIGHT) * occurrences / max;
+    }
+
+    /**
+     * <p>Finds the largest global scale at which the words fill the image without crowding it: every word fits inside the image, and their bounding boxes together cover no more than <code>fill</code> square pixels, a share of the image or of its mask. A word's font size is the scale times its weight.</p>
+     * <p>The covered area grows with the scale, so the scale is found by <b>binary search</b>. Widths come from precomputed <code>FontMetricsTable</code>s, so each step costs one pass over the characters of the words and no calls into AWT.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the total length of the words, as the number of search steps is constant.</p>
+     *
+     * @param words   The words to be rendered.
+     * @param weights The size weight of each word.
+     * @param fonts   The font index of each word.
+     * @param fill    The area that the bounding boxes may cover together, in square pixels.
+     * @return The scale in points.
+     */
+    // O(n) see JavaDocs
+    private static float fitScale(String[] words, float[] weights, int[] fonts, double fill) {
+        FontMetricsTable[] metrics = Fonts.metrics();
+        float low = 1;
+        float high = imageSize[1];
+        for (int step = 0; step < SCALE_SEARCH_STEPS; step++) {
+            float scale = (low + high) / 2;
+            boolean fits = true;
+            double area = 0;
+            for (int i = 0; i < words.length && fits; i++) {
+                float width = metrics[fonts[i]].width(words[i], scale * weights[i]);
+                float height = metrics[fonts[i]].height(scale * weights[i]);
+                fits = width <= imageSize[0] && height <= imageSize[1];
+                area += width * height;
+            }
+            if (fits && area <= fill) low = scale;
+            else high = scale;
+        }
+        return low;
+    }
+
+    /**
+     * Returns whether layouts are seeded from their input, so that identical input yields identical images that can be cached.
+     *
+     * @return True, if deterministic mode is on, or else, false.
+     */
+    // O(1) simple getter/setter
+    public static boolean isDeterministic() {
+        return isDeterministic;
+    }
+
+    /**
+     * Turns deterministic mode on or off. In deterministic mode, layouts are seeded from their input and rendered images are cached under the output directory.
+     *
+     * @param deterministic True to turn deterministic mode on.
+     */
+    // O(1) simple getter/setter
+    public static void setDeterministic(boolean deterministic) {
+        isDeterministic = deterministic;
+        Runner.log(Strings.VAR_SET_DETERMINISTIC.get());
+    }
+
+    /**
+     * <p>Returns a SHA-256 digest of everything that determines a layout: the rendered words in order, their counts, and the layout settings. Any additional <code>parts</code>, such as the output size and format, are digested as well.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of rendered words.</p>
+     *
+     * @param list  The rendered words, already cut down to <code>maxWords</code>.
+     * @param parts Additional values that affect the result.
+     * @return The 32-byte digest.
+     */
+    // O(n) see JavaDocs
+    private static byte[] digest(List<Map.Entry<String, Integer>> list, Object... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform is required to support SHA-256.
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : list) sb.append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+        sb.append(imageSize[0]).append('x').append(imageSize[1]).append('\n').append(SIZING);
+        if (maskFile != null) sb.append("\nmask=").append(maskFile).append('@').append(maskFile.lastModified());
+        for (Object part : parts) sb.append('\n').append(part);
+        return digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the content address of an image: a hexadecimal digest of its words, counts, layout settings, size and format.
+     *
+     * @param list    The sorted word list passed to <code>process</code>.
+     * @param variant The size and format of the image.
+     * @return A 64-character hexadecimal <code>String</code>.
+     */
+    // O(n) see digest
+    private static String cacheKey(List<Map.Entry<String, Integer>> list, RenderVariant variant) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest(list.subList(0, Math.min(list.size(), maxWords)), variant)) hex.append(String.format("%02x", b));
+        return hex.toString();
     }
 
     /**
@@ -85,73 +234,327 @@ public final class WordCloudRenderer {
         return Math.max(0, Math.min(channel, 255));
     }
 
+    /**
+     * <p>Takes in a <code>List</code> of <code>Map.Entry&lt;String, Integer&gt;</code> objects, which contain <b>words</b> as keys and <b>their occurrence counts in a given text</b> as values, and lays out a set number of said words as a cloud at the current image size, choosing a font, size, colour and position for each word.</p>
+     * <p>In deterministic mode, positions are drawn from a generator seeded with a digest of the rendered words, their counts and the layout settings, so the same input always yields the same layout.</p>
+     * <p>Font sizes are scaled so that the words fill the image, see <code>fitScale</code>. If a mask is set, they are scaled to fill the mask instead, and words are placed inside it without overlapping, see <code>placeInMask</code>.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the total length of the actually rendered words; with a mask, building its <code>OccupancyGrid</code> adds time linear in the number of grid cells.</p>
+     *
+     * @param list A <code>List</code> of <code>Map.Entry&lt;String, Integer&gt;</code> objects that cannot be null.
+     * @return The layout of the word cloud at the current image size.
+     */
+    // O(n) see JavaDocs it's just a for loop
+    public static WordCloudLayout layout(List<Map.Entry<String, Integer>> list) {
+        list = list.subList(0, Math.min(list.size(), maxWords));
+        WordCloudLayout layout = new WordCloudLayout(imageSize[0], imageSize[1]);
+        Random generator = isDeterministic ? new Random(ByteBuffer.wrap(digest(list)).getLong()) : random;
+
+        // Colours are dynamically computed but not randomized because a combination of random colours is unlikely to be aesthetically pleasant. Words appear more red and less blue the more frequent they are, and the green channel alternates between a value of 70 and a value of 130. Words are rendered with increasing opacity from 180 for the least frequent word to 255 for the most frequent word.
+        int red = clamp(255 - 10 * list.size());
+        int blue = 255;
+        int green = 130;
+        int alpha = 180;
+
+        // This method cycles through a selection of 10 font styles that were selected for good readability. Again, randomization is possible but not desirable in this context because there is a high chance of illegible results.
+        int count = list.size();
+        String[] words = new String[count];
+        float[] weights = new float[count];
+        int[] fonts = new int[count];
+        for (int i = count - 1, fontCounter = 0; i >= 0; i--, fontCounter = (fontCounter + 1) % 10) {
+            words[i] = list.get(i).getKey();
+            weights[i] = getSizeWeight(list.get(0).getValue(), list.get(i).getValue());
+            fonts[i] = fontCounter;
+        }
+        OccupancyGrid grid = mask == null ? null : new OccupancyGrid(mask, imageSize[0], imageSize[1]);
+        float scale = fitScale(words, weights, fonts, grid == null ? FILL_RATIO * imageSize[0] * imageSize[1] : MASK_FILL_RATIO * grid.getFreeArea());
+        FontMetricsTable[] metrics = Fonts.metrics();
+        WordCloudLayout.PlacedWord[] inMask = grid == null ? null : placeInMask(grid, words, weights, fonts, scale, generator);
+
+        for (int i = count - 1; i >= 0; i--) {
+            String word = words[i];
+            int font = fonts[i];
+            int argb = new Color(red, green, blue, alpha).getRGB();
+
+            if (inMask != null) {
+                if (inMask[i] != null) layout.add(new WordCloudLayout.PlacedWord(word, font, inMask[i].getSize(), inMask[i].getX(), inMask[i].getY(), argb)); // Or else, no room was found for the word.
+            } else {
+                float fontSize = scale * weights[i];
+
+                // Assigns a position that keeps the measured bounds of the rendered word inside the image; posY is the baseline.
+                int wordWidth = (int) Math.ceil(metrics[font].width(word, fontSize));
+                int wordHeight = (int) Math.ceil(metrics[font].height(fontSize));
+                int posX = generator.nextInt(Math.max(imageSize[0] - wordWidth, 1));
+                int posY = Math.round(metrics[font].ascent(fontSize)) + generator.nextInt(Math.max(imageSize[1] - wordHeight, 1));
+
+                layout.add(new WordCloudLayout.PlacedWord(word, font, fontSize, posX, posY, argb));
+            }
+
+            red = clamp(red + 10);
+            blue = clamp(blue - 255 / list.size());
+            green = Math.abs(200 - green);
+            alpha = clamp(alpha + 75 / list.size());
+        }
+        return layout;
+    }
+
+    /**
+     * <p>Places words inside the mask without overlapping, most frequent first, so that the largest words find room while the shape is still empty. A word is tried at <code>MASK_TRIES</code> random positions; if none is free, it is made smaller by <code>MASK_SHRINK_FACTOR</code> up to <code>MASK_SHRINK_STEPS</code> times, and left out if it still finds no room.</p>
+     * <p>Each try costs a constant-time check against the integral image of the mask and, only if that passes, a bitwise test of the word's cells, see <code>OccupancyGrid.find</code>.</p>
+     *
+     * @param grid      The occupancy grid of the mask at the current image size.
+     * @param words     The words, most frequent first.
+     * @param weights   The size weight of each word.
+     * @param fonts     The font index of each word.
+     * @param scale     The global scale, see <code>fitScale</code>.
+     * @param generator The random generator of the layout.
+     * @return The font size and position of each word, with <code>posY</code> being the baseline, or <code>null</code> for a word that was left out. Colours are not set.
+     */
+    // O(n * t) with n being the number of words and t the number of tries per word, most of them rejected in constant time
+    private static WordCloudLayout.PlacedWord[] placeInMask(OccupancyGrid grid, String[] words, float[] weights, int[] fonts, float scale, Random generator) {
+        WordCloudLayout.PlacedWord[] placed = new WordCloudLayout.PlacedWord[words.length];
+        for (int i = 0; i < words.length; i++) placed[i] = placeInGrid(grid, words[i], fonts[i], scale * weights[i], generator);
+        return placed;
+    }
+
+    /**
+     * Places a single word in the free part of <code>grid</code> and marks it as occupied, shrinking it as described in <code>placeInMask</code>.
+     *
+     * @param grid      The occupancy grid of the mask at the current image size.
+     * @param word      The word.
+     * @param font      The font index of the word.
+     * @param fontSize  The font size the word would like to have.
+     * @param generator The random generator of the layout.
+     * @return The font size and position of the word, with <code>posY</code> being the baseline, or <code>null</code> if it was left out. The colour is not set.
+     */
+    // O(t) with t being the number of tries, see OccupancyGrid.find
+    private static WordCloudLayout.PlacedWord placeInGrid(OccupancyGrid grid, String word, int font, float fontSize, Random generator) {
+        FontMetricsTable metrics = Fonts.metrics()[font];
+        for (int step = 0; step <= MASK_SHRINK_STEPS; step++, fontSize *= MASK_SHRINK_FACTOR) {
+            int wordWidth = (int) Math.ceil(metrics.width(word, fontSize));
+            int wordHeight = (int) Math.ceil(metrics.height(fontSize));
+            int[] position = grid.find(wordWidth, wordHeight, generator, MASK_TRIES);
+            if (position == null) continue;
+            grid.occupy(position[0], position[1], wordWidth, wordHeight);
+            return new WordCloudLayout.PlacedWord(word, font, fontSize, position[0], position[1] + Math.round(metrics.ascent(fontSize)), 0);
+        }
+        return null;
+    }
+
+    /**
+     * <p>Lays out <code>list</code> like <code>layout(List)</code>, but keeps the words that are also in <code>previous</code> where they were, so that consecutive frames of an animation differ only where words come, go or grow. A word keeps its font, size, colour and position unless its new size differs from its old one by more than <code>SIZE_TOLERANCE</code>; it is then resized and recoloured in place, moved only as far as needed to stay inside the image. New words are placed as usual.</p>
+     * <p>If a mask is set, the kept words are marked in a fresh <code>OccupancyGrid</code> first. A resized word then stays in place only if it still fits there, and new words, as well as resized words that no longer fit, are placed in the remaining room, most frequent first, see <code>placeInMask</code>.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the total length of the actually rendered words; with a mask, placing words adds the cost of <code>placeInMask</code>.</p>
+     *
+     * @param list     A <code>List</code> of <code>Map.Entry&lt;String, Integer&gt;</code> objects that cannot be null.
+     * @param previous The layout of the previous frame, or <code>null</code> for the first frame.
+     * @return The layout of the word cloud at the current image size.
+     */
+    // O(n) see JavaDocs
+    public static WordCloudLayout layout(List<Map.Entry<String, Integer>> list, WordCloudLayout previous) {
+        WordCloudLayout fresh = layout(list);
+        if (previous == null) return fresh;
+        Map<String, WordCloudLayout.PlacedWord> placed = new HashMap<>();
+        for (WordCloudLayout.PlacedWord word : previous.getWords()) placed.put(word.getWord(), word);
+        FontMetricsTable[] metrics = Fonts.metrics();
+        List<WordCloudLayout.PlacedWord> words = fresh.getWords(); // Least frequent first
+        WordCloudLayout.PlacedWord[] result = new WordCloudLayout.PlacedWord[words.size()];
+        OccupancyGrid grid = mask == null ? null : new OccupancyGrid(mask, imageSize[0], imageSize[1]);
+        for (int i = 0; i < words.size(); i++) {
+            WordCloudLayout.PlacedWord old = placed.get(words.get(i).getWord());
+            if (old == null || Math.abs(words.get(i).getSize() - old.getSize()) > SIZE_TOLERANCE * old.getSize()) continue;
+            result[i] = old;
+            if (grid != null) {
+                FontMetricsTable table = metrics[old.getFont()];
+                grid.occupy(old.getX(), old.getY() - Math.round(table.ascent(old.getSize())), (int) Math.ceil(table.width(old.getWord(), old.getSize())), (int) Math.ceil(table.height(old.getSize())));
+            }
+        }
+
+        Random generator = isDeterministic ? new Random(ByteBuffer.wrap(digest(list)).getLong()) : random;
+        for (int i = words.size() - 1; i >= 0; i--) { // Most frequent first, so that the largest words find room while there is most of it
+            if (result[i] != null) continue;
+            WordCloudLayout.PlacedWord word = words.get(i);
+            WordCloudLayout.PlacedWord old = placed.get(word.getWord());
+            if (old == null) {
+                if (grid == null) {
+                    result[i] = word;
+                } else {
+                    WordCloudLayout.PlacedWord inMask = placeInGrid(grid, word.getWord(), word.getFont(), word.getSize(), generator);
+                    if (inMask != null) result[i] = new WordCloudLayout.PlacedWord(word.getWord(), word.getFont(), inMask.getSize(), inMask.getX(), inMask.getY(), word.getArgb()); // Or else, no room is left for the word.
+                }
+                continue;
+            }
+            int font = old.getFont();
+            float fontSize = word.getSize();
+            int wordWidth = (int) Math.ceil(metrics[font].width(word.getWord(), fontSize));
+            int wordHeight = (int) Math.ceil(metrics[font].height(fontSize));
+            int ascent = Math.round(metrics[font].ascent(fontSize));
+            int posX = Math.max(0, Math.min(old.getX(), imageSize[0] - wordWidth));
+            int posY = Math.max(ascent, Math.min(old.getY(), ascent + imageSize[1] - wordHeight));
+            if (grid != null) {
+                if (grid.fits(posX, posY - ascent, wordWidth, wordHeight)) {
+                    grid.occupy(posX, posY - ascent, wordWidth, wordHeight);
+                } else {
+                    WordCloudLayout.PlacedWord inMask = placeInGrid(grid, word.getWord(), font, fontSize, generator);
+                    if (inMask == null) continue; // No room is left for the word.
+                    fontSize = inMask.getSize();
+                    posX = inMask.getX();
+                    posY = inMask.getY();
+                }
+            }
+            result[i] = new WordCloudLayout.PlacedWord(word.getWord(), font, fontSize, posX, posY, word.getArgb());
+        }
+
+        WordCloudLayout stable = new WordCloudLayout(imageSize[0], imageSize[1]);
+        for (WordCloudLayout.PlacedWord word : result) if (word != null) stable.add(word);
+        return stable;
+    }
+
+    /**
+     * <p>Draws a layout onto a new image of the given size. Positions are scaled with the width and height of the image, font sizes with the smaller of the two factors, so words keep their place in the cloud and stay inside the image.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of words in the layout, disregarding the cost of drawing each glyph.</p>
+     *
+     * @param layout The layout to be drawn.
+     * @param width  The image width.
+     * @param height The image height.
+     * @param alpha  True to render on a transparent background, false to render on a white one for formats without transparency.
+     * @return The rendered image.
+     */
+    // O(n) see JavaDocs
+    public static BufferedImage render(WordCloudLayout layout, int width, int height, boolean alpha) {
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_4BYTE_ABGR : BufferedImage.TYPE_INT_RGB);
+        double scaleX = (double) width / layout.getWidth();
+        double scaleY = (double) height / layout.getHeight();
+        double scaleFont = Math.min(scaleX, scaleY);
+
+        Graphics2D g2 = image.createGraphics();
+        if (!alpha) {
+            g2.setColor(Color.WHITE);
+            g2.fillRect(0, 0, width, height);
+        }
+        RenderingHints rh = new RenderingHints(
+                RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON
+        );
+        g2.setRenderingHints(rh);
+
+        Fonts[] fonts = Fonts.values();
+        for (WordCloudLayout.PlacedWord word : layout.getWords()) {
+            g2.setColor(new Color(word.getArgb(), true));
+            g2.setFont(fonts[word.getFont()].get().deriveFont((float) (word.getSize() * scaleFont)));
+            g2.drawString(word.getWord(), (int) (word.getX() * scaleX), (int) (word.getY() * scaleY));
+        }
+        g2.dispose();
+        return image;
+    }
+
     /**
      * <p>Takes in a <code>List</code> of <code>Map.Entry&lt;String, Integer&gt;</code> objects, which contain <b>words</b> as keys and <b>their occurrence counts in a given text</b> as values, and renders a set number of said words as a cloud that visualises the relative frequency of occurrence for each word. The word cloud is then written to the disk under the name stored in the class variable.</p>
+     * <p>In deterministic mode, an image rendered earlier from the same words, counts and settings is copied from the cache instead of being rendered and encoded again.</p>
      * <p>This method runs in <b>linear time O(n)</b> with n being the number of actually rendered words.</p>
      *
      * @param list A <code>List</code> of <code>Map.Entry&lt;String, Integer&gt;</code> objects that cannot be null.
      */
-    // O(n) see JavaDocs it's just a for loop
+    // O(n) see layout and render
     public static void process(List<Map.Entry<String, Integer>> list) {
         boolean canProceed = true;
         if (WordCloudIO.imageFileExists()) canProceed = WordCloudIO.willOverwrite();
 
         if (list != null && canProceed) {
-            list = list.subList(0, Math.min(list.size(), maxWords));
-            BufferedImage image = new BufferedImage(imageSize[0], imageSize[1], BufferedImage.TYPE_4BYTE_ABGR);
-
-            Graphics2D g2 = image.createGraphics();
-            RenderingHints rh = new RenderingHints(
-                    RenderingHints.KEY_TEXT_ANTIALIASING,
-                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON
-            );
-            g2.setRenderingHints(rh);
-
-            // Colours are dynamically computed but not randomized because a combination of random colours is unlikely to be aesthetically pleasant. Words appear more red and less blue the more frequent they are, and the green channel alternates between a value of 70 and a value of 130. Words are rendered with increasing opacity from 180 for the least frequent word to 255 for the most frequent word.
-            int red = clamp(255 - 10 * list.size());
-            int blue = 255;
-            int green = 130;
-            int alpha = 180;
-
-            g2.setColor(new Color(red, green, blue, alpha));
-
-            // This method cycles through a selection of 10 font styles that were selected for good readability. Again, randomization is possible but not desirable in this context because there is a high chance of illegible results.
-            int fontCounter = 0;
-            Fonts[] fonts = Fonts.values();
-
-            for (int i = list.size() - 1; i >= 0; i--) {
-                String word = list.get(i).getKey();
-                int occurrences = list.get(i).getValue();
-
-                Font font = fonts[fontCounter].get().deriveFont(getFontSize(list.size(), list.get(0).getValue(), occurrences));
-                g2.setFont(font);
-                fontCounter++;
-                if (fontCounter > 9) fontCounter = 0;
-
-                // Roughly calculates the dimensions of the rendered word and assigns a safe position avoid truncations.
-                int wordHeight = font.getSize();
-                int wordWidth = font.getSize() * word.length();
-                int maxX = Math.max((image.getWidth() - wordWidth), 1);
-                int maxY = Math.max((image.getHeight() - wordHeight), 1);
-                int posX = random.nextInt(maxX);
-                int posY = Math.max(random.nextInt(maxY), wordHeight);
-
-                g2.drawString(word, posX, posY);
-
-                red = clamp(red + 10);
-                blue = clamp(blue - 255 / list.size());
-                green = Math.abs(200 - green);
-                alpha = clamp(alpha + 75 / list.size());
-
-                g2.setColor(new Color(red, green, blue, alpha));
-            }
-            g2.dispose();
-            WordCloudIO.writeImageFile(image);
+            refresh(list);
         } else if (list == null){
             Runner.log(Strings.RENDER_WORD_LIST_EMPTY.get());
         }
     }
 
+    /**
+     * <p>Renders <code>list</code> like <code>process</code>, but overwrites the output image without asking. This is used to re-render the same image repeatedly, as in <code>WindowedTabulation</code>.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of actually rendered words.</p>
+     *
+     * @param list A <code>List</code> of <code>Map.Entry&lt;String, Integer&gt;</code> objects that cannot be null.
+     */
+    // O(n) see layout and render
+    public static void refresh(List<Map.Entry<String, Integer>> list) {
+        String key = isDeterministic ? cacheKey(list, new RenderVariant(imageSize[0], imageSize[1], "png")) : null;
+        if (key == null || !WordCloudIO.copyFromCache(key, WordCloudIO.getImageFile())) {
+            boolean isWritten = WordCloudIO.writeImageFile(render(layout(list), imageSize[0], imageSize[1], true));
+            if (isWritten && key != null) WordCloudIO.storeInCache(key, WordCloudIO.getImageFile()); // A failed write leaves the previous image, which must not be cached under this key.
+        }
+    }
+
+    /**
+     * Returns the output variants rendered by <code>processVariants</code>.
+     *
+     * @return A copy of the list of variants.
+     */
+    // O(n) copies the list
+    public static List<RenderVariant> getVariants() {
+        return new ArrayList<>(variants);
+    }
+
+    /**
+     * Adds an output variant to be rendered by <code>processVariants</code>.
+     *
+     * @param variant The new variant.
+     */
+    // O(1) add to an ArrayList
+    public static void addVariant(RenderVariant variant) {
+        variants.add(variant);
+        Runner.log(Strings.VAR_SET_VARIANT_ADDED.get());
+    }
+
+    /**
+     * Removes all output variants.
+     */
+    // O(1) instantiates a new list
+    public static void clearVariants() {
+        variants = new ArrayList<>();
+        Runner.log(Strings.VAR_SET_VARIANTS_CLEARED.get());
+    }
+
+    /**
+     * <p>Lays out the word cloud <b>once</b> at the current image size, then renders and encodes every output variant simultaneously, each under its own file name derived from the output path.</p>
+     * <p>This method runs in <b>linear time O(n)</b> with n being the number of actually rendered words, plus the cost of encoding each variant, which is spread over the available threads.</p>
+     *
+     * @param list A <code>List</code> of <code>Map.Entry&lt;String, Integer&gt;</code> objects.
+     */
+    // O(n) see JavaDocs
+    public static void processVariants(List<Map.Entry<String, Integer>> list) {
+        if (list == null) {
+            Runner.log(Strings.RENDER_WORD_LIST_EMPTY.get());
+            return;
+        }
+        if (variants.isEmpty()) {
+            Runner.log(Strings.RENDER_VARIANTS_EMPTY.get());
+            return;
+        }
+        boolean canProceed = true;
+        for (RenderVariant variant : variants) {
+            if (WordCloudIO.imageFileExists(variant)) {
+                canProceed = WordCloudIO.willOverwrite();
+                break;
+            }
+        }
+        if (!canProceed) return;
+
+        WordCloudLayout layout = layout(list);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(variants.size(), Runtime.getRuntime().availableProcessors()));
+        for (RenderVariant variant : variants) {
+            executor.execute(() -> {
+                String key = isDeterministic ? cacheKey(list, variant) : null;
+                if (key == null || !WordCloudIO.copyFromCache(key, WordCloudIO.getImageFile(variant))) {
+                    boolean isWritten = WordCloudIO.writeImageFile(render(layout, variant.getWidth(), variant.getHeight(), variant.hasAlpha()), variant);
+                    if (isWritten && key != null) WordCloudIO.storeInCache(key, WordCloudIO.getImageFile(variant));
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private WordCloudRenderer() {
     }
 
@@ -159,26 +562,52 @@ public final class WordCloudRenderer {
      * A selection of fonts to be used by the <code>WordCloudRenderer</code>. The size is 0 because it is computed at runtime for each word.
      */
     private enum Fonts {
-        F0(new Font(Font.SANS_SERIF, Font.PLAIN, 0)),
-        F1(new Font(Font.SERIF, Font.BOLD, 0)),
-        F2(new Font(Font.SANS_SERIF, Font.ITALIC, 0)),
-        F3(new Font(Font.SERIF, Font.PLAIN, 0)),
-        F4(new Font(Font.MONOSPACED, Font.BOLD, 0)),
-        F5(new Font(Font.SANS_SERIF, Font.BOLD, 0)),
-        F6(new Font(Font.SERIF, Font.ITALIC, 0)),
-        F7(new Font(Font.MONOSPACED, Font.BOLD | Font.ITALIC, 0)),
-        F8(new Font(Font.SERIF, Font.BOLD | Font.ITALIC, 0)),
-        F9(new Font(Font.SANS_SERIF, Font.BOLD | Font.ITALIC, 0));
+        F0(Font.SANS_SERIF, Font.PLAIN),
+        F1(Font.SERIF, Font.BOLD),
+        F2(Font.SANS_SERIF, Font.ITALIC),
+        F3(Font.SERIF, Font.PLAIN),
+        F4(Font.MONOSPACED, Font.BOLD),
+        F5(Font.SANS_SERIF, Font.BOLD),
+        F6(Font.SERIF, Font.ITALIC),
+        F7(Font.MONOSPACED, Font.BOLD | Font.ITALIC),
+        F8(Font.SERIF, Font.BOLD | Font.ITALIC),
+        F9(Font.SANS_SERIF, Font.BOLD | Font.ITALIC);
 
-        private final Font font;
+        private final String NAME;
+        private final int STYLE;
+        private volatile Font font; // Created on first use, so that starting the app does not load the font system
 
-        Fonts(Font font) {
-            this.font = font;
+        Fonts(String name, int style) {
+            this.NAME = name;
+            this.STYLE = style;
         }
 
-        // O(1) no loops here
+        // O(1) no loops here; two threads may both create the font, which is immutable, so either copy may be kept
         private Font get() {
-            return this.font;
+            Font f = font;
+            if (f == null) font = f = new Font(NAME, STYLE, 0);
+            return f;
+        }
+
+        /**
+         * Returns the metrics tables of all fonts, indexed by ordinal. They are measured on first use and kept for the lifetime of the program.
+         *
+         * @return An array of <code>FontMetricsTable</code>s.
+         */
+        // O(1) see MetricsHolder
+        private static FontMetricsTable[] metrics() {
+            return MetricsHolder.TABLES;
+        }
+    }
+
+    /**
+     * Holds the font metrics tables, which the JVM initialises lazily and thread-safely when <code>Fonts.metrics</code> is first called.
+     */
+    private static final class MetricsHolder {
+        private static final FontMetricsTable[] TABLES = new FontMetricsTable[Fonts.values().length];
+
+        static {
+            for (Fonts font : Fonts.values()) TABLES[font.ordinal()] = new FontMetricsTable(font.get());
         }
     }
 }
\ No newline at end of file